@@ -1,6 +1,9 @@
 package com.example.api_gateway.config;
 
+import com.example.api_gateway.dto.JwtVerification;
 import com.example.api_gateway.service.AuthService;
+import com.example.api_gateway.service.JwtVerifier;
+import com.example.api_gateway.service.TokenRevocationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -19,9 +22,14 @@ import java.nio.charset.StandardCharsets;
 public class AuthenticateFilter implements GatewayFilter {
 
     private final AuthService authService;
+    private final JwtVerifier jwtVerifier;
+    private final TokenRevocationService tokenRevocationService;
 
-    public AuthenticateFilter(AuthService authService) {
+    public AuthenticateFilter(AuthService authService, JwtVerifier jwtVerifier,
+            TokenRevocationService tokenRevocationService) {
         this.authService = authService;
+        this.jwtVerifier = jwtVerifier;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
 
@@ -44,19 +52,26 @@ public class AuthenticateFilter implements GatewayFilter {
         }
 
         String token = bearerToken.substring(7);
-        log.info("Token: {}", token);
 
-        return authService.validateToken(token)
+        // signature, expiry and revocation are checked here, auth-service is only asked for unknown subjects
+        JwtVerification verification = jwtVerifier.verify(token);
+        if (!verification.isValid()) {
+            return onError(exchange, verification.getCode(), verification.getMessage(), HttpStatus.UNAUTHORIZED);
+        }
+        if (tokenRevocationService.isRevoked(token, verification.getClaims())) {
+            return onError(exchange, "JWT_006", "Token is blacklisted", HttpStatus.UNAUTHORIZED);
+        }
+
+        return authService.resolveCredential(token, verification.getClaims())
                 .flatMap(response -> {
-                    log.info("Validate token response: {}", response);
-                    if (response.getData().isValid()) {
+                    if (response.isValid()) {
                         ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
-                                .header("X-Credential-Id", response.getData().getCredentialId())
-                                //.header("X-User-Role", String.join(",", response.getData().getRoles()))
+                                .header("X-Credential-Id", response.getCredentialId())
+                                //.header("X-User-Role", String.join(",", response.getRoles()))
                                 .build();
                         return chain.filter(exchange.mutate().request(mutatedRequest).build());
                     } else {
-                        return onError(exchange, response.getData().getCode(), response.getData().getMessage(), HttpStatus.UNAUTHORIZED);
+                        return onError(exchange, response.getCode(), response.getMessage(), HttpStatus.UNAUTHORIZED);
                     }
                 }).onErrorResume(e -> onError(exchange, "INTERNAL_ERROR", e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
 
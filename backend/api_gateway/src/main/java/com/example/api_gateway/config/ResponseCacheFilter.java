@@ -0,0 +1,170 @@
+package com.example.api_gateway.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// caches GET responses of the polled dashboard endpoints per credential, must run after AuthenticateFilter
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ResponseCacheFilter implements GatewayFilter {
+
+    private final ResponseCacheProperties properties;
+
+    private List<Map.Entry<PathPattern, Long>> rules;
+    private Map<String, CachedResponse> cache;
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private record CachedResponse(HttpStatus status, MediaType contentType, byte[] body, String etag, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        rules = properties.getRules().stream()
+                .map(rule -> Map.entry(PathPatternParser.defaultInstance.parse(rule.getPath()), rule.getTtlMs()))
+                .toList();
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > properties.getMaxSize();
+            }
+        });
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Long ttlMs = request.getMethod() == HttpMethod.GET ? ttlOf(request) : null;
+        if (ttlMs == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = request.getHeaders().getFirst("X-Credential-Id") + " " + request.getURI().getRawPath()
+                + "?" + request.getURI().getRawQuery();
+        CachedResponse cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return write(exchange, cached);
+        }
+
+        // only the first request goes upstream, the others wait for its response
+        Sinks.One<CachedResponse> sink = Sinks.one();
+        Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            return leader.asMono()
+                    .flatMap(response -> write(exchange, response))
+                    // the leader got a response that is not cached, e.g. an error, so ask upstream directly
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        }
+
+        ServerHttpResponse original = exchange.getResponse();
+        ServerHttpResponseDecorator decorated = new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()) {
+                    sink.tryEmitEmpty();
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(Flux.from(body)).flatMap(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+
+                    CachedResponse response = new CachedResponse(HttpStatus.OK, getHeaders().getContentType(), bytes,
+                            etag(bytes), System.currentTimeMillis() + ttlMs);
+                    cache.put(key, response);
+                    sink.tryEmitValue(response);
+
+                    getHeaders().setETag(response.etag());
+                    getHeaders().setCacheControl("private, no-cache");
+                    if (notModified(request, response.etag())) {
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                        getHeaders().setContentLength(0);
+                        return super.writeWith(Mono.empty());
+                    }
+                    getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                    getHeaders().setContentLength(bytes.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorated).build())
+                .doFinally(signal -> {
+                    inFlight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().setCacheControl("private, no-cache");
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        if (cached.contentType() != null) {
+            response.getHeaders().setContentType(cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Long ttlOf(ServerHttpRequest request) {
+        for (Map.Entry<PathPattern, Long> rule : rules) {
+            if (rule.getKey().matches(request.getPath().pathWithinApplication())) {
+                return rule.getValue();
+            }
+        }
+        return null;
+    }
+
+    private boolean notModified(ServerHttpRequest request, String etag) {
+        for (String value : request.getHeaders().getIfNoneMatch()) {
+            if ("*".equals(value) || etag.equals(value) || etag.equals(value.replaceFirst("^W/", ""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Configuration;
 @RequiredArgsConstructor
 public class RouteConfig {
     private final AuthenticateFilter authenticateFilter;
+    private final ResponseCacheFilter responseCacheFilter;
 
     @Bean
     public RouteLocator routeLocator(RouteLocatorBuilder builder) {
@@ -23,11 +24,11 @@ public class RouteConfig {
                         .uri("lb://USER-SERVICE"))
                 .route("camera_service", r -> r
                         .path("/api/cameras/**")
-                        .filters(f -> f.filter(authenticateFilter))
+                        .filters(f -> f.filter(authenticateFilter).filter(responseCacheFilter))
                         .uri("lb://CAMERA-SERVICE"))
                 .route("infrastructure_service", r -> r
                         .path("/api/infrastructures/**")
-                        .filters(f -> f.filter(authenticateFilter))
+                        .filters(f -> f.filter(authenticateFilter).filter(responseCacheFilter))
                         .uri("lb://INFRASTRUCTURE-SERVICE"))
                 .route("report_service", r -> r
                         .path("/api/reports/**")
@@ -0,0 +1,23 @@
+package com.example.api_gateway.dto;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// result of the local token check, codes are the same as auth-service JwtErrorCode
+@Getter
+@AllArgsConstructor
+public class JwtVerification {
+    private final boolean valid;
+    private final String code;
+    private final String message;
+    private final Claims claims;
+
+    public static JwtVerification success(Claims claims) {
+        return new JwtVerification(true, "JWT_00", "Valid Token", claims);
+    }
+
+    public static JwtVerification failure(String code, String message) {
+        return new JwtVerification(false, code, message, null);
+    }
+}
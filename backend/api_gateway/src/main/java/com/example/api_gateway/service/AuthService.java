@@ -2,19 +2,48 @@ package com.example.api_gateway.service;
 
 import com.example.api_gateway.dto.ApiResponse;
 import com.example.api_gateway.dto.CredentialResponse;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthService {
     private final WebClient.Builder webClientBuilder;
 
+    @Value("${gateway.credential-cache.ttl-ms:60000}")
+    private long credentialTtlMs;
+
+    @Value("${gateway.credential-cache.max-size:10000}")
+    private int credentialCacheSize;
+
+    private Map<String, CachedCredential> credentialCache;
+
+    private record CachedCredential(CredentialResponse credential, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        credentialCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCredential> eldest) {
+                return size() > credentialCacheSize;
+            }
+        });
+    }
+
     public Mono<ApiResponse<CredentialResponse>> validateToken(String token) {
         return webClientBuilder
                 .baseUrl("lb://AUTH-SERVICE")
@@ -24,7 +53,37 @@ public class AuthService {
                 .header("Authorization", "Bearer " + token)
                 .retrieve()
                 .bodyToMono(new ParameterizedTypeReference<ApiResponse<CredentialResponse>>() { })
-                .doOnNext(response -> log.info("Token validation response: {}", response))
+                .doOnNext(response -> log.debug("Token validation response: {}", response))
                 .doOnError(error -> log.error("Error during token validation: {}", error.getMessage(), error));
     }
+
+    // token is already verified locally, only the credential id of the subject may be needed from auth-service
+    public Mono<CredentialResponse> resolveCredential(String token, Claims claims) {
+        String email = claims.getSubject();
+        // newer tokens carry the credential id and roles themselves
+        String credentialId = claims.get("cid", String.class);
+        if (credentialId != null) {
+            List<?> authorities = claims.get("authorities", List.class);
+            return Mono.just(CredentialResponse.builder()
+                    .valid(true)
+                    .credentialId(credentialId)
+                    .email(email)
+                    .roles(authorities == null ? List.of() : authorities.stream().map(Object::toString).toList())
+                    .build());
+        }
+
+        CachedCredential cached = credentialCache.get(email);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            return Mono.just(cached.credential());
+        }
+
+        return validateToken(token)
+                .map(ApiResponse::getData)
+                .doOnNext(credential -> {
+                    if (credential.isValid()) {
+                        credentialCache.put(email, new CachedCredential(credential,
+                                System.currentTimeMillis() + credentialTtlMs));
+                    }
+                });
+    }
 }
@@ -0,0 +1,51 @@
+package com.example.api_gateway.service;
+
+import com.example.api_gateway.dto.JwtVerification;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+// verifies signature and expiry of auth-service tokens without calling auth-service
+@Service
+@Slf4j
+public class JwtVerifier {
+
+    // the parser is immutable and thread safe, built once
+    private final JwtParser parser;
+
+    public JwtVerifier(@Value("${jwt.secret}") String secret) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    public JwtVerification verify(String token) {
+        try {
+            return JwtVerification.success(parser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT expired: {}", e.getMessage());
+            return JwtVerification.failure("JWT_001", "Token has expired");
+        } catch (MalformedJwtException e) {
+            log.debug("JWT malformed: {}", e.getMessage());
+            return JwtVerification.failure("JWT_002", "Token is malformed");
+        } catch (SignatureException e) {
+            log.debug("JWT signature invalid: {}", e.getMessage());
+            return JwtVerification.failure("JWT_003", "Token signature is invalid");
+        } catch (UnsupportedJwtException e) {
+            log.debug("JWT unsupported: {}", e.getMessage());
+            return JwtVerification.failure("JWT_004", "Token is unsupported");
+        } catch (IllegalArgumentException e) {
+            log.debug("JWT claim error: {}", e.getMessage());
+            return JwtVerification.failure("JWT_005", "Invalid or missing claims");
+        }
+    }
+}
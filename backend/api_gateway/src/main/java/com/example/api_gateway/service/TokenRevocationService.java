@@ -0,0 +1,94 @@
+package com.example.api_gateway.service;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// local copy of the auth-service blacklist, loaded from redis and kept up to date by pub/sub
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+    public static final String KEY_PREFIX = "blacklist:";
+    public static final String CHANNEL = "auth:token-revoked";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${jwt.expiration-ms}")
+    private long tokenLifetimeMs;
+
+    // token hash -> time after which the token is expired anyway
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        // the key set is reloaded on every (re)subscription so revocations missed while disconnected are picked up
+        redisTemplate.listenToChannel(CHANNEL)
+                .doOnSubscribe(subscription -> loadRevokedKeys())
+                .doOnNext(message -> onRevoked(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Token revocation channel lost: {}", signal.failure().getMessage())))
+                .subscribe();
+
+        Flux.interval(Duration.ofMinutes(10)).subscribe(tick -> purgeExpired());
+    }
+
+    // revocations are keyed by the jti claim, tokens issued before it existed by the whole token
+    public boolean isRevoked(String token, Claims claims) {
+        Long until = revoked.get(hash(claims.getId() != null ? claims.getId() : token));
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void loadRevokedKeys() {
+        redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())
+                .doOnNext(key -> revoke(key.substring(KEY_PREFIX.length())))
+                .count()
+                .subscribe(count -> log.info("Loaded {} revoked tokens", count),
+                        error -> log.warn("Failed to load revoked tokens: {}", error.getMessage()));
+    }
+
+    // message is <hash>:<expiry millis>
+    private void onRevoked(String message) {
+        int index = message.indexOf(':');
+        if (index < 0) {
+            revoke(message);
+        } else {
+            revoked.put(message.substring(0, index), Long.parseLong(message.substring(index + 1)));
+        }
+    }
+
+    // the key scan does not read the expiry, keep the entry for a full token lifetime
+    private void revoke(String tokenHash) {
+        revoked.put(tokenHash, System.currentTimeMillis() + tokenLifetimeMs);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(until -> until <= now);
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.auth_service.config;
 
+import com.example.auth_service.constant.JwtConstant;
+import com.example.auth_service.constant.Role;
 import com.example.auth_service.dto.response.CredentialResponse;
 import com.example.auth_service.model.Credential;
+import io.jsonwebtoken.Claims;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class Mapper {
     public static CredentialResponse map(Credential credential) {
@@ -16,4 +21,17 @@ public class Mapper {
                 .updatedAt(credential.getUpdatedAt())
                 .build();
     }
+
+    // tokens carrying the credential id claim are mapped without reading the credential table
+    public static CredentialResponse map(Claims claims) {
+        List<?> authorities = claims.get(JwtConstant.AUTHORITIES_CLAIM, List.class);
+        return CredentialResponse.builder()
+                .valid(true)
+                .credentialId(claims.get(JwtConstant.CREDENTIAL_ID_CLAIM, String.class))
+                .email(claims.getSubject())
+                .roles(authorities == null ? List.of() : authorities.stream()
+                        .map(authority -> Role.valueOf(authority.toString()))
+                        .toList())
+                .build();
+    }
 }
@@ -4,4 +4,7 @@ public class JwtConstant {
     public static final String JWT_HEADER = "Authorization";
     public static final String SECRET_KEY = "ebd0752a936356225c2c6a728c47ded36c6b55b9bc8c65abd7ad8f76fde8e551";
     public static final long jwtExpiration = 86400000;
+    // claims read by the gateway and validate without a credential lookup
+    public static final String CREDENTIAL_ID_CLAIM = "cid";
+    public static final String AUTHORITIES_CLAIM = "authorities";
 }
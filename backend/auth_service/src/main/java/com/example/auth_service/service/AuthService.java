@@ -22,13 +22,14 @@ import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -36,7 +37,6 @@ import java.util.Collections;
 public class AuthService {
     private final CredentialRepository credentialRepository;
     private final PasswordEncoder passwordEncoder;
-    private final UserService userService;
     private final JwtService jwtService;
     private final TokenBlacklistService tokenBlacklistService;
     private final UserClient userClient;
@@ -77,14 +77,11 @@ public class AuthService {
     }
 
     public TokenResponse login(LoginRequest request) {
-        String token = authenticateAndGenerateToken(
-                request.getEmail(),
-                request.getPassword()
-        );
+        Credential credential = credentialRepository.findCredentialByEmail(request.getEmail())
+                .orElseThrow(() -> new RuntimeException("Credential not exists"));
+        String token = authenticateAndGenerateToken(credential, request.getPassword());
 
         log.info("Token: {}", token);
-        Credential credential = findCredentialByToken(token);
-
         log.info("Credential: {}", credential);
 
 
@@ -120,8 +117,8 @@ public class AuthService {
                 .build();
         }
 
-        Credential credential = findCredentialByToken(token);
-        if (tokenBlacklistService.isTokenBlackListed(token)) {
+        Claims claims = result.getClaims();
+        if (tokenBlacklistService.isTokenBlackListed(token, claims)) {
             return CredentialResponse.builder()
                 .valid(false)
                 .code("JWT_006")
@@ -129,7 +126,10 @@ public class AuthService {
                 .build();
         }
 
-        CredentialResponse credentialResponse =  Mapper.map(credential);
+        // tokens issued before the credential id claim was added still need the lookup
+        CredentialResponse credentialResponse = claims.get(JwtConstant.CREDENTIAL_ID_CLAIM) != null
+            ? Mapper.map(claims)
+            : Mapper.map(findCredentialByClaims(claims));
         credentialResponse.setCode(result.getErrorCode().getCode());
         credentialResponse.setMessage(result.getErrorCode().getMessage());
         return credentialResponse;
@@ -137,25 +137,31 @@ public class AuthService {
 
     public void logout(String bearerToken) {
         String token = bearerToken.substring(7);
+        JwtValidationResult result = jwtService.validateToken(token);
+        // expired or forged tokens are rejected anyway, nothing to revoke
+        if (!result.isValid()) {
+            return;
+        }
         log.info("Blacklisting token: {}", token);
-        tokenBlacklistService.blacklistToken(token, JwtConstant.jwtExpiration);
+        tokenBlacklistService.blacklistToken(token, result.getClaims());
     }
 
-    private String authenticateAndGenerateToken(String email, String password) {
-        UserDetails userDetails = userService.loadUserByUsername(email);
-
-        log.info("Authenticate user details: {}", userDetails);
-
+    private String authenticateAndGenerateToken(Credential credential, String password) {
         // check hashed password
-        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+        if (!passwordEncoder.matches(password, credential.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
 
-        return jwtService.generateToken(new UsernamePasswordAuthenticationToken(userDetails.getUsername(), null, userDetails.getAuthorities()));
+        List<SimpleGrantedAuthority> authorities = credential.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .toList();
+        return jwtService.generateToken(
+                new UsernamePasswordAuthenticationToken(credential.getEmail(), null, authorities), credential.getId());
     }
 
-    private Credential findCredentialByToken(String token) {
-        String email = jwtService.getEmailFromJwt(token);
+    // claims come from validateToken, the token is not parsed again
+    private Credential findCredentialByClaims(Claims claims) {
+        String email = claims.getSubject();
         log.info("Email extracted from token: {}", email);
         return credentialRepository.findCredentialByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Credential not exists"));
@@ -5,6 +5,8 @@ import com.example.auth_service.dto.response.JwtErrorCode;
 import com.example.auth_service.dto.response.JwtValidationResult;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -20,7 +22,7 @@ import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.List;
-import java.util.function.Function;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,30 +31,35 @@ import java.util.stream.Collectors;
 public class JwtService {
     private final SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
     private final long jwtExpiration = JwtConstant.jwtExpiration;
+    // immutable and thread safe, built once instead of per call
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
 
     public String generateToken(Authentication authentication) {
+        return generateToken(authentication, null);
+    }
+
+    public String generateToken(Authentication authentication, String credentialId) {
         log.info("Generating token: {}", authentication.getName());
         List<String> roles = authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList());
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setIssuedAt(new Date())
                 .setExpiration((new Date(new Date().getTime() + jwtExpiration)))
+                .setId(UUID.randomUUID().toString())
                 .setSubject(authentication.getName())
-                .claim("authorities", roles)
-                .signWith(key)
-                .compact();
+                .claim(JwtConstant.AUTHORITIES_CLAIM, roles);
+        if (credentialId != null) {
+            builder.claim(JwtConstant.CREDENTIAL_ID_CLAIM, credentialId);
+        }
+        return builder.signWith(key).compact();
     }
 
     public JwtValidationResult validateToken(String token) {
-        log.info("Validating token: {}", token);
+        log.debug("Validating token: {}", token);
         try {
-            Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
             return JwtValidationResult.success(claims, JwtErrorCode.VALID_TOKEN);
         } catch (ExpiredJwtException e) {
             log.error("JWT expired: {}", e.getMessage());
@@ -73,41 +80,19 @@ public class JwtService {
     }
 
 
+    // prefer validateToken(token).getClaims().getSubject() when the token is validated anyway
     public String getEmailFromJwt(String token) {
-        log.info("Token: {}", token);
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return extractAllClaims(token).getSubject();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = getEmailFromJwt(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private <T> T extractClaim(String token, Function<Claims, T> claimsTFunction) {
         final Claims claims = extractAllClaims(token);
-        return claimsTFunction.apply(claims);
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             throw new RuntimeException("Unable to extract claims", e);
         }
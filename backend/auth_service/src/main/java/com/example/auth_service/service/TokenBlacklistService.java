@@ -1,25 +1,220 @@
 package com.example.auth_service.service;
 
+import com.example.auth_service.utils.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+// revoked tokens are kept in redis under blacklist:<sha256(jti)> until they expire,
+// a local bloom filter partitioned by expiry hour answers most lookups without redis
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
+    // the gateway loads blacklist:* on startup and listens on the channel for new revocations
+    public static final String KEY_PREFIX = "blacklist:";
+    public static final String CHANNEL = "auth:token-revoked";
+    // entries written before the expiry was stored as value, checked for every token
+    private static final long UNKNOWN_EXPIRY = -1L;
+    // keys written before the prefix, a jwt always starts with the encoded {" of its header
+    private static final String LEGACY_KEY_PATTERN = "eyJ*";
+    private static final String LEGACY_VALUE = "blacklisted";
+
     private final RedisTemplate<Object, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${auth.blacklist.partition-ms:3600000}")
+    private long partitionMs;
+
+    @Value("${auth.blacklist.expected-per-partition:10000}")
+    private int expectedPerPartition;
+
+    @Value("${auth.blacklist.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // expiry partition -> filter, a partition is dropped once all of its tokens are expired
+    private final Map<Long, BloomFilter> partitions = new ConcurrentHashMap<>();
+    // until the first load from redis is done every lookup goes to redis
+    private volatile boolean loaded = false;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    // the ttl is the remaining lifetime of the token, after that it is rejected as expired anyway
+    public void blacklistToken(String token, Claims claims) {
+        long expiresAt = claims.getExpiration().getTime();
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        String tokenHash = HexFormat.of().formatHex(digest(revocationId(token, claims)));
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenHash, String.valueOf(expiresAt), Duration.ofMillis(ttl));
+        redisTemplate.convertAndSend(CHANNEL, tokenHash + ":" + expiresAt);
+        add(tokenHash, expiresAt);
+    }
+
+    public boolean isTokenBlackListed(String token, Claims claims) {
+        byte[] digest = digest(revocationId(token, claims));
+        if (loaded) {
+            if (!mightContain(partition(claims.getExpiration().getTime()), digest)
+                    && !mightContain(UNKNOWN_EXPIRY, digest)) {
+                return false;
+            }
+        }
+        return redisTemplate.opsForValue().get(KEY_PREFIX + HexFormat.of().formatHex(digest)) != null;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length == 2) {
+            add(parts[0], Long.parseLong(parts[1]));
+        }
+    }
+
+    // before the prefix the whole token was the key ("blacklisted" as value), those are rewritten once with their
+    // remaining ttl so tokens revoked before the upgrade stay revoked. runs before the first reload
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrateLegacyKeys() {
+        int count = 0;
+        try (Cursor<Object> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(LEGACY_KEY_PATTERN).count(1000).build())) {
+            while (cursor.hasNext()) {
+                if (migrateLegacyKey(cursor.next().toString())) {
+                    count++;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to migrate legacy blacklist keys: {}", e.getMessage());
+        }
+        if (count > 0) {
+            log.info("Migrated {} legacy blacklist keys", count);
+        }
+    }
+
+    // filters only grow, reloading every key covers messages missed while the subscription was down
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${auth.blacklist.reload-ms:600000}", initialDelayString = "${auth.blacklist.reload-ms:600000}")
+    public void reload() {
+        List<String> keys = new ArrayList<>();
+        int count = 0;
+        try (Cursor<Object> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next().toString());
+                if (keys.size() == 1000) {
+                    count += load(keys);
+                    keys.clear();
+                }
+            }
+            count += load(keys);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load token blacklist: {}", e.getMessage());
+            return;
+        }
+        loaded = true;
+        log.info("Token blacklist filter loaded {} tokens", count);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.blacklist.partition-ms:3600000}")
+    public void dropExpiredPartitions() {
+        long current = partition(System.currentTimeMillis());
+        partitions.keySet().removeIf(partition -> partition != UNKNOWN_EXPIRY && partition < current);
+    }
+
+    private boolean migrateLegacyKey(String token) {
+        Object value = redisTemplate.opsForValue().get(token);
+        Long ttl = redisTemplate.getExpire(token, TimeUnit.MILLISECONDS);
+        if (!LEGACY_VALUE.equals(value) || ttl == null || ttl <= 0) {
+            return false;
+        }
+        // legacy tokens have no jti, their revocation id is the token itself
+        long expiresAt = System.currentTimeMillis() + ttl;
+        String tokenHash = HexFormat.of().formatHex(digest(token));
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenHash, String.valueOf(expiresAt), Duration.ofMillis(ttl));
+        redisTemplate.convertAndSend(CHANNEL, tokenHash + ":" + expiresAt);
+        redisTemplate.delete(token);
+        add(tokenHash, expiresAt);
+        return true;
+    }
+
+    private int load(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(new ArrayList<>(keys));
+        int count = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = values == null ? null : values.get(i);
+            if (value == null) {
+                continue;
+            }
+            String tokenHash = keys.get(i).substring(KEY_PREFIX.length());
+            String expiresAt = value.toString();
+            if (expiresAt.chars().allMatch(Character::isDigit)) {
+                add(tokenHash, Long.parseLong(expiresAt));
+            } else {
+                partitions.computeIfAbsent(UNKNOWN_EXPIRY, p -> newFilter()).put(HexFormat.of().parseHex(tokenHash));
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private void add(String tokenHash, long expiresAt) {
+        partitions.computeIfAbsent(partition(expiresAt), p -> newFilter()).put(HexFormat.of().parseHex(tokenHash));
+    }
+
+    private boolean mightContain(long partition, byte[] digest) {
+        BloomFilter filter = partitions.get(partition);
+        return filter != null && filter.mightContain(digest);
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedPerPartition, falsePositiveRate);
+    }
+
+    private long partition(long expiresAt) {
+        return expiresAt / partitionMs;
+    }
 
-    public void blacklistToken(String token, long expiryTimeInSeconds) {
-        redisTemplate.opsForValue().set(token, "blacklisted", Duration.ofMillis(expiryTimeInSeconds));
+    // tokens issued before the jti claim fall back to the whole token
+    private static String revocationId(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : token;
     }
 
-    public boolean isTokenBlackListed(String token) {
-        var blacklistedToken = redisTemplate.opsForValue().get(token);
-        log.info("Fetching token from redis: {}", blacklistedToken);
-        return blacklistedToken != null;
+    private static byte[] digest(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
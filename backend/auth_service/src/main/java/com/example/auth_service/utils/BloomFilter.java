@@ -0,0 +1,48 @@
+package com.example.auth_service.utils;
+
+import java.util.BitSet;
+
+// fixed size bloom filter over 256 bit digests, the digest bytes are used directly as the two base hashes
+public class BloomFilter {
+    private final BitSet bits;
+    private final int size;
+    private final int hashCount;
+
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int n = Math.max(1, expectedInsertions);
+        this.size = (int) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.hashCount = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        this.bits = new BitSet(size);
+    }
+
+    public synchronized void put(byte[] digest) {
+        long h1 = toLong(digest, 0);
+        long h2 = toLong(digest, 8);
+        for (int i = 0; i < hashCount; i++) {
+            bits.set(index(h1, h2, i));
+        }
+    }
+
+    public synchronized boolean mightContain(byte[] digest) {
+        long h1 = toLong(digest, 0);
+        long h2 = toLong(digest, 8);
+        for (int i = 0; i < hashCount; i++) {
+            if (!bits.get(index(h1, h2, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) size);
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
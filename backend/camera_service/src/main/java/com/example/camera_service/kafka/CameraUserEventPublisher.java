@@ -0,0 +1,29 @@
+package com.example.camera_service.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// notify other services that the cameras of a user changed, key = userId, value = cameraId
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CameraUserEventPublisher {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${camera.kafka.camera-user-topic}")
+    private String topic;
+
+    public void publishChanged(String userId, String cameraId) {
+        // consumers also expire their cache by ttl, a lost message only delays the update
+        kafkaTemplate.send(topic, userId, cameraId).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.warn("Failed to publish camera_user change for user {}: {}", userId, ex.getMessage());
+            }
+        });
+    }
+}
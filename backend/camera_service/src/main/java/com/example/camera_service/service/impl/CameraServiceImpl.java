@@ -4,6 +4,7 @@ import java.util.List;
 
 import com.example.camera_service.client.StreamingClient;
 import com.example.camera_service.dto.MediaSourceDTO;
+import com.example.camera_service.kafka.CameraUserEventPublisher;
 import com.example.camera_service.repository.CameraUserRepository;
 import com.example.camera_service.utils.CameraStatus;
 import org.springframework.beans.factory.annotation.Value;
@@ -34,6 +35,7 @@ public class CameraServiceImpl implements CameraService {
     private final CameraUserRepository cameraUserRepository;
     private final CameraMapper cameraMapper;
     private final StreamingClient streamingClient;
+    private final CameraUserEventPublisher cameraUserEventPublisher;
     @Value("${stream.ip-address}")
     private String streamIpAddress;
     @Value("${stream.port}")
@@ -65,6 +67,7 @@ public class CameraServiceImpl implements CameraService {
         cameraUser.setUserId(credentialId);
         cameraUser.setCamera(camera);
         cameraUserRepository.save(cameraUser);
+        cameraUserEventPublisher.publishChanged(credentialId, camera.getId());
 
         // kiem tra link kha nang hoat dong cua rtsp
         camera.setCameraStatus(getCameraStatus(camera.getId()));
@@ -109,7 +112,9 @@ public class CameraServiceImpl implements CameraService {
     public void deleteCamera(String id) {
         Camera camera = cameraRepository.findById(id).orElseThrow(() -> new AppException(ErrorCode.CAMERA_NOT_EXISTED));
         streamingClient.deletePath(camera.getName().replaceAll(" ", "").toLowerCase());
+        List<CameraUser> cameraUsers = cameraUserRepository.findByCameraId(id);
         cameraRepository.delete(camera);
+        cameraUsers.forEach(cameraUser -> cameraUserEventPublisher.publishChanged(cameraUser.getUserId(), id));
     }
 
     @Override
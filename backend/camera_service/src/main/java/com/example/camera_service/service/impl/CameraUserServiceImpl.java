@@ -14,6 +14,7 @@ import com.example.camera_service.entity.Camera;
 import com.example.camera_service.entity.CameraUser;
 import com.example.camera_service.exception.AppException;
 import com.example.camera_service.exception.ErrorCode;
+import com.example.camera_service.kafka.CameraUserEventPublisher;
 import com.example.camera_service.mapper.CameraMapper;
 import com.example.camera_service.mapper.CameraUserMapper;
 import com.example.camera_service.repository.CameraRepository;
@@ -29,17 +30,20 @@ public class CameraUserServiceImpl implements CameraUserService {
     private final CameraUserMapper cameraUserMapper;
     private final CameraMapper cameraMapper;
     private final CameraRepository cameraRepository;
+    private final CameraUserEventPublisher cameraUserEventPublisher;
 
     @Autowired
     public CameraUserServiceImpl(
             CameraUserRepository cameraUserRepository,
             CameraUserMapper cameraUserMapper,
             CameraMapper cameraMapper,
-            CameraRepository cameraRepository) {
+            CameraRepository cameraRepository,
+            CameraUserEventPublisher cameraUserEventPublisher) {
         this.cameraUserRepository = cameraUserRepository;
         this.cameraUserMapper = cameraUserMapper;
         this.cameraMapper = cameraMapper;
         this.cameraRepository = cameraRepository;
+        this.cameraUserEventPublisher = cameraUserEventPublisher;
     }
 
     public List<CameraUserResponse> getUserByCamId(String camId) {
@@ -73,6 +77,8 @@ public class CameraUserServiceImpl implements CameraUserService {
                 .orElseThrow(() -> new AppException(ErrorCode.CAMERA_NOT_EXISTED));
         cameraUser.setCamera(camera);
         cameraUser.setUserId(cameraUserDTO.getUserId());
-        return cameraUserMapper.toCameraUserResponse(cameraUserRepository.save(cameraUser));
+        CameraUserResponse response = cameraUserMapper.toCameraUserResponse(cameraUserRepository.save(cameraUser));
+        cameraUserEventPublisher.publishChanged(cameraUserDTO.getUserId(), camera.getId());
+        return response;
     }
 }
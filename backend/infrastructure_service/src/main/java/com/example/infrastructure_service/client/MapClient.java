@@ -17,22 +17,24 @@ public class MapClient {
   @Value("${mapbox.access.token}")
   private String key;
 
-  public String getAddress(double latitude, double longitude) {
+  // null when there is no address for the location, throws when the request itself failed
+  public String findAddress(double latitude, double longitude) {
     String mapUrl = "https://mapapis.openmap.vn/v1/geocode/reverse?format=google&latlng={lat},{long}&apikey=" + key;
-    try {
-      String response = restClient.get()
-          .uri(mapUrl, Map.of("lat", latitude, "long", longitude))
-          .retrieve()
-          .body(String.class);
+    String response = restClient.get()
+        .uri(mapUrl, Map.of("lat", latitude, "long", longitude))
+        .retrieve()
+        .body(String.class);
 
-      JsonNode root = objectMapper.readTree(response);
-      JsonNode results = root.path("results");
-      if (results.isArray() && results.size() > 0) {
-        return results.get(0).path("formatted_address").asText(null); // nếu không có thì sẽ trả về null
-      } else {
-        return null;
-      }
+    JsonNode root;
+    try {
+      root = objectMapper.readTree(response);
     } catch (Exception e) {
+      throw new RuntimeException("Invalid geocoding response: " + e.getMessage(), e);
+    }
+    JsonNode results = root.path("results");
+    if (results.isArray() && results.size() > 0) {
+      return results.get(0).path("formatted_address").asText(null); // nếu không có thì sẽ trả về null
+    } else {
       return null;
     }
   }
@@ -2,6 +2,7 @@ package com.example.infrastructure_service.config;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -17,6 +18,7 @@ import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.util.backoff.ExponentialBackOff;
 import org.springframework.util.backoff.FixedBackOff;
 
 @Configuration
@@ -29,6 +31,12 @@ public class KafkaConsumerConfig {
   @Value("${spring.kafka.consumer.group-id}")
   private String groupId;
 
+  @Value("${infra.kafka.batch.max-poll-records:500}")
+  private int batchMaxPollRecords;
+
+  @Value("${infra.kafka.batch.max-backoff-ms:60000}")
+  private long batchMaxBackOffMs;
+
   @Bean
   public ConsumerFactory<String, String> consumerFactory() {
     Map<String, Object> config = new HashMap<>();
@@ -56,6 +64,36 @@ public class KafkaConsumerConfig {
     return factory;
   }
 
+  // batch listener: one poll is parsed and saved in a single transaction, offsets are acked after commit
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+    ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setConcurrency(5);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+    Properties props = new Properties();
+    props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+    factory.getContainerProperties().setKafkaConsumerProperties(props);
+
+    factory.setCommonErrorHandler(batchErrorHandler());
+    return factory;
+  }
+
+  // invalid records are already skipped by the listener, a failing poll means the database or another dependency
+  // is down: the poll is retried with a growing backoff until it goes through, its records are never skipped
+  @Bean
+  public DefaultErrorHandler batchErrorHandler() {
+    ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+    backOff.setMaxInterval(batchMaxBackOffMs);
+    backOff.setMaxElapsedTime(Long.MAX_VALUE);
+    return new DefaultErrorHandler((record, exception) -> {
+      // not reached, the backoff never runs out
+      log.error("Failed to process batch record after retries: {}", record.value(), exception);
+    }, backOff);
+  }
+
   @Bean
   public DefaultErrorHandler errorHandler() {
     // Retry 3 times with a fixed backoff of 1 second
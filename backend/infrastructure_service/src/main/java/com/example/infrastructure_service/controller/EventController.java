@@ -1,8 +1,10 @@
 package com.example.infrastructure_service.controller;
 
 import com.example.infrastructure_service.dto.ApiResponse;
+import com.example.infrastructure_service.dto.Cursor;
 import com.example.infrastructure_service.dto.request.EventFilterRequest;
 import com.example.infrastructure_service.dto.request.UpdateEventRequest;
+import com.example.infrastructure_service.dto.response.CursorResponse;
 import com.example.infrastructure_service.dto.response.PageResponse;
 import com.example.infrastructure_service.model.Event;
 import com.example.infrastructure_service.service.EventService;
@@ -40,7 +42,7 @@ public class EventController {
     Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
 
     Page<Event> events = eventService.getFilterEvents(
-        pageable, request.getStartTime(), request.getEndTime(), request.getEventStatus(), request.getStatus(),
+        pageable, request.capturedRange(), request.endTimeRange(), request.getEventStatus(), request.getStatus(),
         request.getCategory(), request.getName(), request.getCameraId(), request.getLocation(), request.getKeyword(), request.getConfidence(), request.getLevel()
         , credentialId
     );
@@ -51,6 +53,25 @@ public class EventController {
   }
 
 
+  // keyset pagination, pass nextCursor of the previous page as cursor
+  @PostMapping("/filter/cursor")
+  public ApiResponse<CursorResponse<Event>> getEventsByCursor(
+      @RequestBody EventFilterRequest request,
+      @RequestHeader("X-Credential-Id") String credentialId
+  ) {
+
+    int size = Cursor.pageSize(request.getSize());
+    List<Event> events = eventService.getFilterEventsAfter(
+        Cursor.decode(request.getCursor()), size + 1, request.capturedRange(), request.endTimeRange(),
+        request.getEventStatus(), request.getStatus(), request.getCategory(), request.getName(), request.getCameraId(),
+        request.getLocation(), request.getKeyword(), request.getConfidence(), request.getLevel(), credentialId
+    );
+    return ApiResponse.<CursorResponse<Event>>builder()
+        .message("Get events by filter successfully")
+        .data(new CursorResponse<>(events, size, e -> new Cursor(e.getDateCaptured(), e.getId())))
+        .build();
+  }
+
   @GetMapping("/{id}")
   public ApiResponse<Event> getEvent(@PathVariable String id){
 
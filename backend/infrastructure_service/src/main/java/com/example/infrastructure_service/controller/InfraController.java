@@ -1,13 +1,15 @@
 package com.example.infrastructure_service.controller;
 
-import com.example.infrastructure_service.client.MapClient;
 import com.example.infrastructure_service.dto.ApiResponse;
+import com.example.infrastructure_service.dto.Cursor;
 import com.example.infrastructure_service.dto.request.FindNearestInfraRequest;
 import com.example.infrastructure_service.dto.request.InfraFilterRequest;
 import com.example.infrastructure_service.dto.request.NewInfraRequest;
 import com.example.infrastructure_service.dto.request.UpdateInfraRequest;
+import com.example.infrastructure_service.dto.response.CursorResponse;
 import com.example.infrastructure_service.dto.response.PageResponse;
 import com.example.infrastructure_service.model.InfraObject;
+import com.example.infrastructure_service.service.GeocodingService;
 import com.example.infrastructure_service.service.InfraProcessingService;
 import com.example.infrastructure_service.service.InfraService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -28,7 +30,7 @@ public class InfraController {
 
   private final InfraService infraService;
   private final InfraProcessingService infraProcessingService;
-  private final MapClient mapClient;
+  private final GeocodingService geocodingService;
   private final ObjectMapper objectMapper;
   //get infra object by filter: camId, time, category
   @PostMapping("/filter")
@@ -40,14 +42,34 @@ public class InfraController {
     Pageable pageable = request.getIsPaged() != null && !request.getIsPaged() ? Pageable.unpaged() : PageRequest.of(request.getPage(), request.getSize());
 
     Page<InfraObject> infraObjects = infraService.getFilterInfraObject(
-        pageable, request.getName(), request.getLocation(), request.getDateCaptured(), request.getStatus(),
-        request.getCategory(), request.getCameraId(), credentialId, request.getKeyword(), request.getType()
+        pageable, request.getName(), request.getLocation(), request.dateRange(), request.getStatus(),
+        request.getCategory(), request.getCameraId(), credentialId, request.getKeyword(), request.getType(),
+        Boolean.TRUE.equals(request.getEstimateCount())
     );
     return ApiResponse.<PageResponse<InfraObject>>builder()
         .message("Get infra objects by filter successfully")
         .data(new PageResponse<>(infraObjects))
         .build();
   }
+  // keyset pagination, pass nextCursor of the previous page as cursor
+  @PostMapping("/filter/cursor")
+  public ApiResponse<CursorResponse<InfraObject>> getInfraObjectsByCursor(
+      @RequestBody InfraFilterRequest request,
+      @RequestHeader("X-Credential-Id") String credentialId
+  ) {
+
+    int size = Cursor.pageSize(request.getSize());
+    List<InfraObject> infraObjects = infraService.getFilterInfraObjectAfter(
+        Cursor.decode(request.getCursor()), size + 1, request.getName(), request.getLocation(),
+        request.dateRange(), request.getStatus(), request.getCategory(), request.getCameraId(), credentialId,
+        request.getKeyword(), request.getType()
+    );
+    return ApiResponse.<CursorResponse<InfraObject>>builder()
+        .message("Get infra objects by filter successfully")
+        .data(new CursorResponse<>(infraObjects, size, o -> new Cursor(o.getDateCaptured(), o.getId())))
+        .build();
+  }
+
   // find the nearest infra by location
   @GetMapping("/find")
   public ApiResponse<InfraObject> findInfraByLocation(
@@ -90,12 +112,13 @@ public class InfraController {
 
   @GetMapping("/geocoding")
   public String getAddress(@RequestParam Double latitude, @RequestParam Double longitude) {
-    return mapClient.getAddress(latitude, longitude);
+    return geocodingService.getAddress(latitude, longitude);
   }
 
   @GetMapping("/search")
-  public ApiResponse<PageResponse<InfraObject>> searchInfraObjects(@RequestParam String keyword, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
-    Page<InfraObject> infraObjects = infraService.searchByKeyword(keyword, page, size);
+  public ApiResponse<PageResponse<InfraObject>> searchInfraObjects(@RequestParam String keyword, @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size,
+      @RequestParam(defaultValue = "false") boolean estimateCount) {
+    Page<InfraObject> infraObjects = infraService.searchByKeyword(keyword, page, size, estimateCount);
 
     return ApiResponse.<PageResponse<InfraObject>>builder()
         .message("Search infra objects successfully")
@@ -103,6 +126,17 @@ public class InfraController {
         .build();
   }
 
+  @GetMapping("/search/cursor")
+  public ApiResponse<CursorResponse<InfraObject>> searchInfraObjectsByCursor(@RequestParam String keyword, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "10") int size) {
+    size = Cursor.pageSize(size);
+    List<InfraObject> infraObjects = infraService.searchByKeywordAfter(keyword, Cursor.decode(cursor), size + 1);
+
+    return ApiResponse.<CursorResponse<InfraObject>>builder()
+        .message("Search infra objects successfully")
+        .data(new CursorResponse<>(infraObjects, size, o -> new Cursor(o.getDateCaptured(), o.getId())))
+        .build();
+  }
+
   @GetMapping("/lost")
   public ApiResponse<List<InfraObject>> getLostInfraObjects() {
     return ApiResponse.<List<InfraObject>>builder()
@@ -8,6 +8,8 @@ import com.example.infrastructure_service.service.ReportService;
 import java.time.LocalDate;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/infrastructures/report")
@@ -39,4 +42,20 @@ public class ReportController {
         .build();
   }
 
+  @PostMapping("/camera/version")
+  public ApiResponse<String> getInfraReportVersion(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId) {
+    return ApiResponse.<String>builder()
+        .message("get camera report version successfully")
+        .data(reportService.getCameraReportVersion(credentialId, request.getCameraId(), request.getStartTime(), request.getEndTime()))
+        .build();
+  }
+
+  // same data as /camera, one object per line, report-service reads it while writing the workbook
+  @PostMapping(value = "/camera/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamInfraReport(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(reportService.streamCameraReportData(credentialId, request.getCameraId(), request.getStartTime(), request.getEndTime()));
+  }
+
 }
@@ -2,6 +2,7 @@ package com.example.infrastructure_service.controller;
 
 import com.example.infrastructure_service.dto.ApiResponse;
 import com.example.infrastructure_service.dto.response.StatisticsResponse;
+import com.example.infrastructure_service.enums.StatisticsGranularity;
 import com.example.infrastructure_service.service.StatisticsService;
 import java.time.LocalDate;
 import lombok.RequiredArgsConstructor;
@@ -23,9 +24,10 @@ public class StatisticsController {
   public ApiResponse<StatisticsResponse> getStatistics(
       @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate startDate,
       @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate endDate,
-      @RequestParam String cameraId) {
+      @RequestParam String cameraId,
+      @RequestParam(defaultValue = "DAY") StatisticsGranularity granularity) {
 
-    StatisticsResponse response = statisticsService.getStatistics(startDate, endDate, cameraId);
+    StatisticsResponse response = statisticsService.getStatistics(startDate, endDate, cameraId, granularity);
     return ApiResponse.<StatisticsResponse>builder()
         .message("Get statistics data successfully with camera id " + cameraId)
         .data(response)
@@ -0,0 +1,47 @@
+package com.example.infrastructure_service.dto;
+
+import com.example.infrastructure_service.exception.CustomRuntimeException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// opaque seek key for keyset pagination ordered by (date_captured DESC, id DESC), dateCaptured may be null
+public record Cursor(LocalDateTime dateCaptured, String id) {
+
+  private static final String SEPARATOR = "|";
+  public static final int MAX_PAGE_SIZE = 100;
+
+  // requested size of a cursor page, clamped to 1..MAX_PAGE_SIZE
+  public static int pageSize(int size) {
+    return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+  }
+
+  public String encode() {
+    String raw = (dateCaptured == null ? "" : dateCaptured.toString()) + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // null or empty cursor means the first page
+  public static Cursor decode(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int index = raw.indexOf(SEPARATOR);
+      String time = raw.substring(0, index);
+      String id = raw.substring(index + 1);
+      if (id.isEmpty()) {
+        throw new IllegalArgumentException("Missing id");
+      }
+      return new Cursor(time.isEmpty() ? null : LocalDateTime.parse(time), id);
+    } catch (RuntimeException e) {
+      throw new CustomRuntimeException(1004, "Invalid cursor");
+    }
+  }
+
+  // empty for a row without date_captured
+  public String timeParam() {
+    return dateCaptured == null ? "" : dateCaptured.toString();
+  }
+}
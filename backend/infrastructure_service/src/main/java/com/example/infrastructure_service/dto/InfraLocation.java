@@ -0,0 +1,11 @@
+package com.example.infrastructure_service.dto;
+
+public record InfraLocation(
+    String id,
+    String cameraId,
+    String category,
+    String name,
+    Double latitude,
+    Double longitude
+) {
+}
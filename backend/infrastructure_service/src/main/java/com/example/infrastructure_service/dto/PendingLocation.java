@@ -0,0 +1,9 @@
+package com.example.infrastructure_service.dto;
+
+public record PendingLocation(
+    String id,
+    Double latitude,
+    Double longitude,
+    Integer attempts
+) {
+}
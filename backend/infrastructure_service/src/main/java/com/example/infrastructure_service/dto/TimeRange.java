@@ -0,0 +1,84 @@
+package com.example.infrastructure_service.dto;
+
+import com.example.infrastructure_service.exception.CustomRuntimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// half-open time range [from, to), a null bound means unbounded on that side
+public record TimeRange(LocalDateTime from, LocalDateTime to) {
+
+  public static final TimeRange ALL = new TimeRange(null, null);
+
+  private static final DateTimeFormatter MINUTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+  private static final DateTimeFormatter SECOND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  // explicit bounds win, otherwise the old string filter (e.g. '2024-05-01' or '2024-05') is expanded to its period
+  public static TimeRange of(LocalDateTime from, LocalDateTime to, String period) {
+    if (from != null || to != null) {
+      if (from != null && to != null && !from.isBefore(to)) {
+        throw new CustomRuntimeException(1005, "Invalid time range");
+      }
+      return new TimeRange(from, to);
+    }
+    return ofPeriod(period);
+  }
+
+  public static TimeRange ofDays(LocalDate startDate, LocalDate endDate) {
+    return new TimeRange(startDate == null ? null : startDate.atStartOfDay(),
+        endDate == null ? null : endDate.plusDays(1).atStartOfDay());
+  }
+
+  public static TimeRange ofPeriod(String period) {
+    if (period == null || period.isBlank()) {
+      return ALL;
+    }
+    String value = period.trim().replace('T', ' ');
+    try {
+      switch (value.length()) {
+        case 4 -> {
+          LocalDateTime start = LocalDate.of(Integer.parseInt(value), 1, 1).atStartOfDay();
+          return new TimeRange(start, start.plusYears(1));
+        }
+        case 7 -> {
+          LocalDateTime start = YearMonth.parse(value).atDay(1).atStartOfDay();
+          return new TimeRange(start, start.plusMonths(1));
+        }
+        case 10 -> {
+          LocalDateTime start = LocalDate.parse(value).atStartOfDay();
+          return new TimeRange(start, start.plusDays(1));
+        }
+        case 13 -> {
+          LocalDateTime start = LocalDateTime.parse(value + ":00", MINUTE);
+          return new TimeRange(start, start.plusHours(1));
+        }
+        case 16 -> {
+          LocalDateTime start = LocalDateTime.parse(value, MINUTE);
+          return new TimeRange(start, start.plusMinutes(1));
+        }
+        case 19 -> {
+          LocalDateTime start = LocalDateTime.parse(value, SECOND);
+          return new TimeRange(start, start.plusSeconds(1));
+        }
+        default -> throw new CustomRuntimeException(1005, "Invalid time filter: " + period);
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new CustomRuntimeException(1005, "Invalid time filter: " + period);
+    }
+  }
+
+  public boolean isUnbounded() {
+    return from == null && to == null;
+  }
+
+  // native queries take the bounds as strings and cast them, a null timestamp bind has no usable sql type
+  public String fromParam() {
+    return from == null ? null : from.toString();
+  }
+
+  public String toParam() {
+    return to == null ? null : to.toString();
+  }
+}
@@ -1,12 +1,19 @@
 package com.example.infrastructure_service.dto.request;
 
+import com.example.infrastructure_service.dto.TimeRange;
 import java.time.LocalDateTime;
 import lombok.Data;
 
 @Data
 public class EventFilterRequest {
+  // day of date_captured / end_time as 'YYYY-MM-DD', the typed ranges below take precedence
   private String startTime;
   private String endTime;
+  // half-open ranges [from, to)
+  private LocalDateTime capturedFrom;
+  private LocalDateTime capturedTo;
+  private LocalDateTime endTimeFrom;
+  private LocalDateTime endTimeTo;
   private String eventStatus;
   private String status;
   private String category;
@@ -19,4 +26,14 @@ public class EventFilterRequest {
 
   private int page = 0;
   private int size = 10;
+  // keyset pagination, nextCursor of the previous page
+  private String cursor;
+
+  public TimeRange capturedRange() {
+    return TimeRange.of(capturedFrom, capturedTo, startTime);
+  }
+
+  public TimeRange endTimeRange() {
+    return TimeRange.of(endTimeFrom, endTimeTo, endTime);
+  }
 }
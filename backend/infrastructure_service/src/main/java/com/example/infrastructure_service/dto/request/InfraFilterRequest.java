@@ -1,5 +1,6 @@
 package com.example.infrastructure_service.dto.request;
 
+import com.example.infrastructure_service.dto.TimeRange;
 import java.time.LocalDateTime;
 import lombok.Data;
 
@@ -7,14 +8,26 @@ import lombok.Data;
 public class InfraFilterRequest {
   private String name;
   private String location;
+  // 'YYYY', 'YYYY-MM', 'YYYY-MM-DD' ... prefix of date_captured, dateFrom/dateTo take precedence
   private String dateCaptured;
+  // half-open range [dateFrom, dateTo)
+  private LocalDateTime dateFrom;
+  private LocalDateTime dateTo;
   private String status;
   private String category;
   private String cameraId;
   private String keyword;
   private String type;
   private Boolean isPaged;
+  // count at most infra.search.count-cap rows, the total is flagged as estimated above that
+  private Boolean estimateCount;
 
   private int page = 0;
   private int size = 10;
+  // keyset pagination, nextCursor of the previous page
+  private String cursor;
+
+  public TimeRange dateRange() {
+    return TimeRange.of(dateFrom, dateTo, dateCaptured);
+  }
 }
@@ -0,0 +1,25 @@
+package com.example.infrastructure_service.dto.response;
+
+import com.example.infrastructure_service.dto.Cursor;
+import java.util.List;
+import java.util.function.Function;
+import lombok.Data;
+
+@Data
+public class CursorResponse<T> {
+
+  private List<T> pageData;
+  private int pageSize;
+  private String nextCursor;
+  private boolean hasNext;
+
+  // rows holds up to pageSize + 1 items, the extra one only tells that there is a next page,
+  // pageSize is at least 1, see Cursor.pageSize
+  public CursorResponse(List<T> rows, int pageSize, Function<T, Cursor> cursorOf) {
+    pageSize = Math.max(1, pageSize);
+    this.hasNext = rows.size() > pageSize;
+    this.pageData = hasNext ? rows.subList(0, pageSize) : rows;
+    this.pageSize = pageSize;
+    this.nextCursor = hasNext ? cursorOf.apply(pageData.get(pageData.size() - 1)).encode() : null;
+  }
+}
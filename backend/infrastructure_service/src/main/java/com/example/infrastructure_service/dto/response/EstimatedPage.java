@@ -0,0 +1,18 @@
+package com.example.infrastructure_service.dto.response;
+
+import java.util.List;
+import lombok.Getter;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+// page whose total may come from a capped count or table statistics instead of an exact COUNT(*)
+@Getter
+public class EstimatedPage<T> extends PageImpl<T> {
+
+  private final boolean totalEstimated;
+
+  public EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalEstimated) {
+    super(content, pageable, total);
+    this.totalEstimated = totalEstimated;
+  }
+}
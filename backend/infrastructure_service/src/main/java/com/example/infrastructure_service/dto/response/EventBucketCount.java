@@ -0,0 +1,11 @@
+package com.example.infrastructure_service.dto.response;
+
+import java.sql.Date;
+
+// row of the event_daily_rollup aggregation
+public interface EventBucketCount {
+
+  Date getBucket();
+
+  Long getEventCount();
+}
@@ -12,6 +12,8 @@ public class PageResponse<T> {
   private int pageSize;
   private long totalElements;
   private int totalPages;
+  // totalElements is a lower bound / estimate, not an exact count
+  private boolean totalEstimated;
 
   public PageResponse(Page<T> page) {
     this.pageData = page.getContent();
@@ -19,5 +21,6 @@ public class PageResponse<T> {
     this.pageSize = page.getSize();
     this.totalElements = page.getTotalElements();
     this.totalPages = page.getTotalPages();
+    this.totalEstimated = page instanceof EstimatedPage<T> estimatedPage && estimatedPage.isTotalEstimated();
   }
 }
@@ -0,0 +1,7 @@
+package com.example.infrastructure_service.enums;
+
+public enum StatisticsGranularity {
+  DAY,
+  WEEK,
+  MONTH
+}
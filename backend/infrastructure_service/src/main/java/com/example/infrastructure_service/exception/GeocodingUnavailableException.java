@@ -0,0 +1,15 @@
+package com.example.infrastructure_service.exception;
+
+// the geocoder could not be asked (rate limit, upstream error), unlike a null address which means it has no result
+public class GeocodingUnavailableException extends RuntimeException {
+  private final boolean rateLimited;
+
+  public GeocodingUnavailableException(String message, boolean rateLimited) {
+    super(message);
+    this.rateLimited = rateLimited;
+  }
+
+  public boolean isRateLimited() {
+    return rateLimited;
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.infrastructure_service.kafka;
+
+import com.example.infrastructure_service.service.CameraUserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CameraUserConsumer {
+
+  private final CameraUserService cameraUserService;
+
+  // every instance keeps its own cache, so every instance needs its own consumer group
+  @KafkaListener(topics = "${infra.camera-acl.topic:camera-user}", groupId = "${infra.camera-acl.group-id}",
+      containerFactory = "kafkaListenerContainerFactory", concurrency = "1",
+      properties = "auto.offset.reset=latest")
+  public void listen(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
+    log.debug("Camera access of user {} changed, camera {}", record.key(), record.value());
+    cameraUserService.evict(record.key());
+    acknowledgment.acknowledge();
+  }
+}
@@ -6,6 +6,7 @@ import com.example.infrastructure_service.service.JsonToInfraObjectProcess;
 import com.example.infrastructure_service.service.InfraService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +24,8 @@ public class MessageConsumer {
   private final InfraService infraService;
   private final ObjectMapper objectMapper;
 
-  @KafkaListener(topics = "service", groupId = "infra_service", containerFactory = "kafkaListenerContainerFactory", concurrency = "5")
+  @KafkaListener(id = "infra_service_single", topics = "service", groupId = "infra_service", containerFactory = "kafkaListenerContainerFactory", concurrency = "5",
+      autoStartup = "#{!${infra.kafka.batch.enabled:true}}")
   public void listen(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
 
     try {
@@ -42,6 +44,34 @@ public class MessageConsumer {
 
   }
 
+  @KafkaListener(id = "infra_service_batch", topics = "service", groupId = "infra_service", containerFactory = "batchKafkaListenerContainerFactory", concurrency = "5",
+      autoStartup = "${infra.kafka.batch.enabled:true}")
+  public void listenBatch(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+    log.info("Received batch of {} records", records.size());
+
+    List<JsonObject> jsonObjects = new ArrayList<>(records.size());
+    for (ConsumerRecord<String, String> record : records) {
+      try {
+        JsonObject jsonObject = objectMapper.readValue(record.value(), JsonObject.class);
+        infraObjectService.validate(jsonObject);
+        jsonObjects.add(jsonObject);
+      } catch (JsonProcessingException e) {
+        // skip the broken message, the rest of the poll is still processed
+        log.error("JSON processing error for message at offset {}: ", record.offset(), e);
+      } catch (RuntimeException e) {
+        // e.g. an annotation without category or image, would otherwise roll back the whole poll
+        log.error("Invalid message at offset {}: {}", record.offset(), e.getMessage());
+      }
+    }
+
+    // saved in one transaction, if it fails the batch error handler retries the whole poll with backoff
+    // until it goes through, no record of it is skipped
+    List<InfraObjectProcess> infraObjects = infraObjectService.processParseObjects(jsonObjects);
+    log.info("Saved {} infra objects from {} records", infraObjects.size(), records.size());
+
+    acknowledgment.acknowledge();
+  }
+
   private void processMessage(String data) throws JsonProcessingException {
     // Parse JSON to JsonObject
     JsonObject jsonObject = objectMapper.readValue(data, JsonObject.class);
@@ -49,7 +79,7 @@ public class MessageConsumer {
 
     // Parse JsonObject to InfraObject list
     List<InfraObjectProcess> infraObjects = infraObjectService.processParseObject(jsonObject);
-    log.info("Parsed infra objects: {}", infraObjects);
+    log.info("Parsed {} infra objects", infraObjects.size());
 
 //    // Save or update infra objects in the database
 //    infraService.processUpdateInfraList(infraObjects);
@@ -45,6 +45,11 @@ public class InfraObject {
   private double confidence;
   private Integer level;
   private String location;
+  // address not resolved yet, filled by AddressEnrichmentService
+  private Boolean locationPending;
+  // failed geocoding attempts, the row is skipped until locationRetryAt
+  private Integer locationAttempts;
+  private LocalDateTime locationRetryAt;
   private String scheduleId;
   private String bbox;
   private Boolean isUpdated = true;
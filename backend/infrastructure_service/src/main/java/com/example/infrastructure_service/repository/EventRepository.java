@@ -1,12 +1,13 @@
 package com.example.infrastructure_service.repository;
 
-import com.example.infrastructure_service.dto.response.EventDateCount;
+import com.example.infrastructure_service.dto.response.EventBucketCount;
 import com.example.infrastructure_service.model.Event;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -20,27 +21,81 @@ public interface EventRepository extends JpaRepository<Event, String>,
   @Query("SELECT e from Event e where e.infraObject.id = :infraObjectId ORDER BY e.dateCaptured DESC LIMIT 1")
   Event findTheLastEvent(@Param("infraObjectId") String infraObjectId);
 
-  @Query(value = "SELECT new com.example.infrastructure_service.dto.response.EventDateCount(CAST(e.dateCaptured AS date), COUNT(e)) " +
-      "FROM Event e " +
-      "JOIN e.infraObject io " +
-      "WHERE CAST(e.dateCaptured AS date) >= COALESCE(:startDate, CAST('1970-01-01' AS date)) " +
-      "AND CAST(e.dateCaptured AS date) <= COALESCE(:endDate, CAST('9999-12-31' AS date)) " +
-      "AND io.cameraId = COALESCE(:cameraId, io.cameraId) " +
-      "GROUP BY CAST(e.dateCaptured AS date) " +
-      "ORDER BY CAST(e.dateCaptured AS date) ASC")
-  List<EventDateCount> getEventStatistics(
-      @Param("startDate") LocalDate startDate,
-      @Param("endDate") LocalDate endDate,
-      @Param("cameraId") String cameraId
+  // reads the rollup maintained by the event triggers (V6), granularity is 'day', 'week' or 'month'
+  @Query(value = """
+    SELECT CAST(date_trunc(:granularity, r.day) AS date) AS bucket, SUM(r.event_count) AS "eventCount"
+    FROM event_daily_rollup r
+    WHERE (COALESCE(:cameraId, '') = '' OR r.camera_id = :cameraId)
+      AND (COALESCE(:startDate, '') = '' OR r.day >= CAST(:startDate AS date))
+      AND (COALESCE(:endDate, '') = '' OR r.day <= CAST(:endDate AS date))
+    GROUP BY 1
+    HAVING SUM(r.event_count) > 0
+    ORDER BY 1
+    """, nativeQuery = true)
+  List<EventBucketCount> getEventStatistics(
+      @Param("startDate") String startDate,
+      @Param("endDate") String endDate,
+      @Param("cameraId") String cameraId,
+      @Param("granularity") String granularity
+  );
+
+  // fingerprint of everything the camera report shows: the event counts per day and status, event end times,
+  // the histories in the range and the object fields, changes when any of them changes
+  @Query(value = """
+    SELECT md5(concat_ws('|',
+        (SELECT string_agg(concat_ws(':', r.day, r.category, r.status, r.event_status, r.event_count), ','
+             ORDER BY r.day, r.category, r.status, r.event_status)
+         FROM event_daily_rollup r
+         WHERE r.camera_id = :cameraId
+           AND r.day >= CAST(:startDate AS date) AND r.day <= CAST(:endDate AS date)),
+        (SELECT concat_ws(':', COUNT(e.end_time), SUM(EXTRACT(EPOCH FROM e.end_time)))
+         FROM event e JOIN infra_objects o ON o.id = e.infra_object_id
+         WHERE o.camera_id = :cameraId
+           AND e.date_captured >= CAST(:startDate AS date) AND e.date_captured < CAST(:endDate AS date) + 1),
+        (SELECT concat_ws(':', COUNT(*), MAX(h.date_captured))
+         FROM history h JOIN infra_objects o ON o.id = h.infra_object_id
+         WHERE o.camera_id = :cameraId
+           AND h.date_captured >= CAST(:startDate AS date) AND h.date_captured < CAST(:endDate AS date) + 1),
+        (SELECT md5(string_agg(concat_ws(':', o.id, o.name, o.category, o.status, o.confidence, o.level, o.location,
+             o.latitude, o.longitude, o.date_captured), ',' ORDER BY o.id))
+         FROM infra_objects o
+         WHERE o.camera_id = :cameraId)))
+    """, nativeQuery = true)
+  String getReportVersion(
+      @Param("cameraId") String cameraId,
+      @Param("startDate") String startDate,
+      @Param("endDate") String endDate
   );
 
   List<Event> findByInfraObject_Id(String infraObjectId);
 
+  // events of every object of a camera in the range, grouped by object in ReportService
+  @EntityGraph(attributePaths = {"image", "infraObject"})
+  @Query("SELECT e FROM Event e WHERE e.infraObject.cameraId = :cameraId "
+      + "AND e.dateCaptured >= :startTime AND e.dateCaptured < :endTime")
+  List<Event> findByCameraAndDate(@Param("cameraId") String cameraId,
+      @Param("startTime") LocalDateTime startTime,
+      @Param("endTime") LocalDateTime endTime);
+
+  @EntityGraph(attributePaths = {"image", "infraObject"})
+  @Query("SELECT e FROM Event e WHERE e.infraObject.id IN :infraObjectIds "
+      + "AND e.dateCaptured >= :startTime AND e.dateCaptured < :endTime")
+  List<Event> findByInfraObjectsAndDate(@Param("infraObjectIds") Collection<String> infraObjectIds,
+      @Param("startTime") LocalDateTime startTime,
+      @Param("endTime") LocalDateTime endTime);
+
+  // last event of each infra object in one query
+  @Query(value = """
+    SELECT DISTINCT ON (e.infra_object_id) e.* FROM event e
+    WHERE e.infra_object_id IN (:infraObjectIds)
+    ORDER BY e.infra_object_id, e.date_captured DESC
+    """, nativeQuery = true)
+  List<Event> findLastEvents(@Param("infraObjectIds") Collection<String> infraObjectIds);
+
   @Query("select e from Event e where e.infraObject.id = :id order by e.dateCaptured desc ")
   List<Event> findEventByDate(@Param("id") String infraObjectId);
 
-  @Query(value = """
-    SELECT e.* FROM infra_objects i, event e
+  String EVENT_FILTER_WHERE = """
     WHERE 
         e.infra_object_id  = i.id
         AND (COALESCE(:cameraId, '') = '' OR camera_id = :cameraId)
@@ -51,50 +106,31 @@ public interface EventRepository extends JpaRepository<Event, String>,
             FROM regexp_split_to_table(unaccent(:location), '\\s*,\\s*') AS loc_phrase
             WHERE unaccent(replace(location, ' ', '')) NOT ILIKE '%' || replace(loc_phrase, ' ', '') || '%'
         ))
-        AND (COALESCE(:startTime, '') = '' OR TO_CHAR(e.date_captured, 'YYYY-MM-DD') = :startTime)
-        AND (COALESCE(:endTime, '') = '' OR TO_CHAR(e.end_time, 'YYYY-MM-DD') = :endTime)                
-        AND (COALESCE(:status, '') = '' OR e.status = :status)
-        AND (COALESCE(:eventStatus, '') = '' OR e.event_status = :eventStatus)
-        AND (COALESCE(:confidence, 0) = 0 OR (e.confidence >= :confidence - 0.2 AND e.confidence <= :confidence))
-        AND (:level is null OR (e.level = :level))  
-        AND NOT EXISTS (
-            SELECT 1 
-            FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-            WHERE unaccent(replace(CONCAT_WS('', location, name, category, e.status, e.event_status), ' ', '')) 
-            NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
-        )
-        ORDER BY e.date_captured DESC
-    """,
-      countQuery = """
-    SELECT COUNT(*) FROM event e, infra_objects i
-    WHERE
-        e.infra_object_id  = i.id
-        AND (COALESCE(:cameraId, '') = '' OR camera_id = :cameraId)
-        AND (COALESCE(:category, '') = '' OR category = :category)
-        AND (COALESCE(:name, '') = '' OR unaccent(name) ILIKE '%' || unaccent(:name) || '%')
-        AND (COALESCE(:location, '') = '' OR NOT EXISTS (
-            SELECT 1 
-            FROM regexp_split_to_table(unaccent(:location), '\\s*,\\s*') AS loc_phrase
-            WHERE unaccent(replace(location, ' ', '')) NOT ILIKE '%' || replace(loc_phrase, ' ', '') || '%'
-        ))
-        AND (COALESCE(:startTime, '') = '' OR TO_CHAR(e.date_captured, 'YYYY-MM-DD') = :startTime)
-        AND (COALESCE(:endTime, '') = '' OR TO_CHAR(e.end_time, 'YYYY-MM-DD') = :endTime)       
+        AND (COALESCE(:capturedFrom, '') = '' OR e.date_captured >= CAST(:capturedFrom AS timestamp))
+        AND (COALESCE(:capturedTo, '') = '' OR e.date_captured < CAST(:capturedTo AS timestamp))
+        AND (COALESCE(:endFrom, '') = '' OR e.end_time >= CAST(:endFrom AS timestamp))
+        AND (COALESCE(:endTo, '') = '' OR e.end_time < CAST(:endTo AS timestamp))
         AND (COALESCE(:status, '') = '' OR e.status = :status)
         AND (COALESCE(:eventStatus, '') = '' OR e.event_status = :eventStatus)
         AND (COALESCE(:confidence, 0) = 0 OR (e.confidence >= (:confidence - 0.2) AND e.confidence <= :confidence))
         AND (:level is null OR (e.level = :level))  
+        AND (COALESCE(:keywordPhrase, '') = '' OR e.search_text ILIKE '%' || replace(unaccent(:keywordPhrase), ' ', '') || '%')
         AND NOT EXISTS (
             SELECT 1 
             FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-            WHERE unaccent(replace(CONCAT_WS('', location, name, category, e.status, e.event_status), ' ', '')) 
-            NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
+            WHERE e.search_text NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
         )
-    """,
+    """;
+
+  @Query(value = "SELECT e.* FROM infra_objects i, event e " + EVENT_FILTER_WHERE + " ORDER BY e.date_captured DESC",
+      countQuery = "SELECT COUNT(*) FROM event e, infra_objects i " + EVENT_FILTER_WHERE,
       nativeQuery = true)
   Page<Event> getEventByFilterAndKeyword(
       Pageable pageable,
-      String startTime,
-      String endTime,
+      String capturedFrom,
+      String capturedTo,
+      String endFrom,
+      String endTo,
       String eventStatus,
       String status,
       String category,
@@ -102,8 +138,39 @@ public interface EventRepository extends JpaRepository<Event, String>,
       String cameraId,
       String location,
       String keyword,
+      String keywordPhrase,
       Double confidence,
       Integer level
   );
 
+  // keyset pagination: rows strictly after the (date_captured, id) of the last row of the previous page,
+  // rows without date_captured come first (DESC puts nulls first) and are sent with an empty cursorTime
+  @Query(value = "SELECT e.* FROM infra_objects i, event e " + EVENT_FILTER_WHERE + """
+        AND (COALESCE(:cursorId, '') = ''
+            OR (COALESCE(:cursorTime, '') = '' AND (e.date_captured IS NOT NULL OR e.id < :cursorId))
+            OR (e.date_captured, e.id) < (CAST(NULLIF(:cursorTime, '') AS timestamp), :cursorId))
+        ORDER BY e.date_captured DESC, e.id DESC
+        LIMIT :limit
+    """,
+      nativeQuery = true)
+  List<Event> getEventByFilterAndKeywordAfter(
+      String capturedFrom,
+      String capturedTo,
+      String endFrom,
+      String endTo,
+      String eventStatus,
+      String status,
+      String category,
+      String name,
+      String cameraId,
+      String location,
+      String keyword,
+      String keywordPhrase,
+      Double confidence,
+      Integer level,
+      String cursorTime,
+      String cursorId,
+      int limit
+  );
+
 }
@@ -2,8 +2,10 @@ package com.example.infrastructure_service.repository;
 
 import com.example.infrastructure_service.model.History;
 import com.example.infrastructure_service.model.InfraObject;
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,14 +16,21 @@ public interface HistoryRepository extends JpaRepository<History, Integer> {
 
   List<History> findByInfraObject_Id(String id);
 
-  @Query(value = "SELECT h.* FROM history h " +
-      "JOIN infra_objects io ON h.infra_object_id = io.id " +
-      "WHERE io.camera_id = :cameraId " +
-      "AND (DATE(h.date_captured) BETWEEN :startTime AND :endTime) ",
-      nativeQuery = true)
+  // half-open range, a null bound is open on that side
+  @EntityGraph(attributePaths = {"image", "infraObject"})
+  @Query("SELECT h FROM History h WHERE h.infraObject.cameraId = :cameraId "
+      + "AND (:startTime IS NULL OR h.dateCaptured >= :startTime) "
+      + "AND (:endTime IS NULL OR h.dateCaptured < :endTime)")
   List<History> findByCameraAndDate(@Param("cameraId") String cameraId,
-      @Param("startTime") LocalDate startTime,
-      @Param("endTime") LocalDate endTime);
+      @Param("startTime") LocalDateTime startTime,
+      @Param("endTime") LocalDateTime endTime);
+
+  @EntityGraph(attributePaths = {"image", "infraObject"})
+  @Query("SELECT h FROM History h WHERE h.infraObject.id IN :infraObjectIds "
+      + "AND h.dateCaptured >= :startTime AND h.dateCaptured < :endTime")
+  List<History> findByInfraObjectsAndDate(@Param("infraObjectIds") Collection<String> infraObjectIds,
+      @Param("startTime") LocalDateTime startTime,
+      @Param("endTime") LocalDateTime endTime);
 
   List<History> findByScheduleId(String scheduleId);
 
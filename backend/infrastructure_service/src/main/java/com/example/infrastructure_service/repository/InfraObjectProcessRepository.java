@@ -1,11 +1,18 @@
 package com.example.infrastructure_service.repository;
 
+import com.example.infrastructure_service.dto.PendingLocation;
 import com.example.infrastructure_service.enums.ProcessStatus;
 import com.example.infrastructure_service.model.InfraObjectProcess;
+import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface InfraObjectProcessRepository extends JpaRepository<InfraObjectProcess, String> {
@@ -13,6 +20,11 @@ public interface InfraObjectProcessRepository extends JpaRepository<InfraObjectP
   List<InfraObjectProcess> findByScheduleIdAndProcessStatus(String scheduleId,
       ProcessStatus processStatus);
 
+  @EntityGraph(attributePaths = {"image", "infraObject", "infraObject.info", "infraObject.image"})
+  @Query("SELECT p FROM InfraObjectProcess p WHERE p.scheduleId = :scheduleId AND p.processStatus = :processStatus ORDER BY p.dateCaptured ASC")
+  List<InfraObjectProcess> findForApproval(@Param("scheduleId") String scheduleId,
+      @Param("processStatus") ProcessStatus processStatus);
+
   @Query(value = """
     SELECT * FROM infra_object_process
     WHERE schedule_id = :scheduleId
@@ -24,4 +36,26 @@ public interface InfraObjectProcessRepository extends JpaRepository<InfraObjectP
   List<InfraObjectProcess> filterInfraProcess(String scheduleId, String status, String processStatus, String eventStatus);
 
   List<InfraObjectProcess> findByScheduleId(String scheduleId);
+
+  @Query("""
+    SELECT new com.example.infrastructure_service.dto.PendingLocation(p.id, p.latitude, p.longitude,
+        p.locationAttempts)
+    FROM InfraObjectProcess p
+    WHERE p.locationPending = true AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL
+      AND (p.locationRetryAt IS NULL OR p.locationRetryAt <= :now)
+    """)
+  List<PendingLocation> findPendingLocations(@Param("now") LocalDateTime now, Pageable pageable);
+
+  long countByLocationPendingTrue();
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE InfraObjectProcess p SET p.location = :location, p.locationPending = false WHERE p.id IN :ids")
+  int updateLocation(@Param("ids") List<String> ids, @Param("location") String location);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE InfraObjectProcess p SET p.locationAttempts = :attempts, p.locationRetryAt = :retryAt WHERE p.id IN :ids")
+  int scheduleLocationRetry(@Param("ids") List<String> ids, @Param("attempts") int attempts,
+      @Param("retryAt") LocalDateTime retryAt);
 }
@@ -1,11 +1,14 @@
 package com.example.infrastructure_service.repository;
 
+import com.example.infrastructure_service.dto.InfraLocation;
+import com.example.infrastructure_service.dto.PendingLocation;
 import com.example.infrastructure_service.dto.response.CategoryStatusCount;
 import com.example.infrastructure_service.model.InfraObject;
 import java.time.LocalDateTime;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
@@ -84,30 +87,9 @@ public interface InfraObjectRepository extends JpaRepository<InfraObject, String
   List<InfraObject> getInfraObjectsWithLost();
 
 
-  @Query(value = """
-    SELECT infra_objects.* FROM infra_objects join infra_info on infra_objects.info_id = infra_info.id
-    WHERE 
-        (COALESCE(:cameraId, '') = '' OR camera_id = :cameraId)
-        AND (COALESCE(:category, '') = '' OR category = :category)
-        AND (COALESCE(:name, '') = '' OR unaccent(name) ILIKE '%' || unaccent(:name) || '%')
-        AND (COALESCE(:location, '') = '' OR NOT EXISTS (
-            SELECT 1 
-            FROM regexp_split_to_table(unaccent(:location), '\\s*,\\s*') AS loc_phrase
-            WHERE unaccent(replace(location, ' ', '')) NOT ILIKE '%' || replace(loc_phrase, ' ', '') || '%'
-        ))
-        AND (COALESCE(:date, '') = '' OR TO_CHAR(date_captured, 'YYYY-MM-DD HH24:MI:SS') LIKE '%' || :date || '%')
-        AND (COALESCE(:status, '') = '' OR status = :status)
-        AND (COALESCE(:type, '') = '' OR type = :type)
-        AND NOT EXISTS (
-            SELECT 1 
-            FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-            WHERE unaccent(replace(CONCAT_WS('', location, name, additional_data, key_id, category, status), ' ', '')) 
-            NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
-        )
-        ORDER BY date_captured DESC
-    """,
-      countQuery = """
-    SELECT infra_objects.* FROM infra_objects join infra_info on infra_objects.info_id = infra_info.id
+  // keyword matched on location, name, info additional data / key id, category and status, not on the date.
+  // only objects with an infra_info row are listed, as with the former inner join
+  String SEARCH_AND_FILTER_WHERE = """
     WHERE 
         (COALESCE(:cameraId, '') = '' OR camera_id = :cameraId)
         AND (COALESCE(:category, '') = '' OR category = :category)
@@ -117,54 +99,176 @@ public interface InfraObjectRepository extends JpaRepository<InfraObject, String
             FROM regexp_split_to_table(unaccent(:location), '\\s*,\\s*') AS loc_phrase
             WHERE unaccent(replace(location, ' ', '')) NOT ILIKE '%' || replace(loc_phrase, ' ', '') || '%'
         ))
-        AND (COALESCE(:date, '') = '' OR TO_CHAR(date_captured, 'YYYY-MM-DD HH24:MI:SS') LIKE '%' || :date || '%')
+        AND (COALESCE(:dateFrom, '') = '' OR date_captured >= CAST(:dateFrom AS timestamp))
+        AND (COALESCE(:dateTo, '') = '' OR date_captured < CAST(:dateTo AS timestamp))
         AND (COALESCE(:status, '') = '' OR status = :status)
         AND (COALESCE(:type, '') = '' OR type = :type)
+        AND EXISTS (SELECT 1 FROM infra_info WHERE infra_info.id = infra_objects.info_id)
+        AND (COALESCE(:keywordPhrase, '') = '' OR filter_search_text ILIKE '%' || replace(unaccent(:keywordPhrase), ' ', '') || '%')
         AND NOT EXISTS (
             SELECT 1 
             FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-            WHERE unaccent(replace(CONCAT_WS('', location, name, additional_data, key_id, category, status), ' ', '')) 
-            NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
+            WHERE filter_search_text NOT ILIKE '%' || replace(phrase, ' ', '') || '%'
         )
-    """,
+    """;
+
+  String SEARCH_BY_KEYWORD_WHERE = """
+    WHERE EXISTS (SELECT 1 FROM infra_info WHERE infra_info.id = infra_objects.info_id)
+    AND (COALESCE(:keywordPhrase, '') = '' OR search_text ILIKE '%' || replace(unaccent(:keywordPhrase), ' ', '') || '%')
+    AND NOT EXISTS (
+        SELECT 1 
+        FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
+        WHERE search_text NOT ILIKE '%' || replace(phrase,' ','') || '%'
+    )
+    """;
+
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_AND_FILTER_WHERE + " ORDER BY date_captured DESC",
+      countQuery = "SELECT COUNT(*) FROM infra_objects " + SEARCH_AND_FILTER_WHERE,
       nativeQuery = true)
   Page<InfraObject> searchAndFilter(
       @Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase,
       @Param("cameraId") String cameraId,
       @Param("category") String category,
       @Param("name") String name,
       @Param("location") String location,
-      @Param("date") String date,
+      @Param("dateFrom") String dateFrom,
+      @Param("dateTo") String dateTo,
       @Param("status") String status,
       Pageable pageable,
       @Param("type") String type
 
   );
 
+  // page content only, the total is counted separately with countSearchAndFilterCapped
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_AND_FILTER_WHERE + " ORDER BY date_captured DESC",
+      nativeQuery = true)
+  List<InfraObject> searchAndFilterContent(
+      @Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase,
+      @Param("cameraId") String cameraId,
+      @Param("category") String category,
+      @Param("name") String name,
+      @Param("location") String location,
+      @Param("dateFrom") String dateFrom,
+      @Param("dateTo") String dateTo,
+      @Param("status") String status,
+      Pageable pageable,
+      @Param("type") String type
+  );
 
-  @Query(value = """
-    SELECT infra_objects.* FROM infra_objects join infra_info on infra_objects.info_id = infra_info.id
-    WHERE NOT EXISTS (
-        SELECT 1 
-        FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-        WHERE unaccent(replace(CONCAT_WS('', location, name, category, additional_data, key_id, status, TO_CHAR(date_captured, 'DD/MM/YYYY')),' ','')) 
-        NOT ILIKE '%' || replace(phrase,' ','') || '%'
-    )
+  @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM infra_objects " + SEARCH_AND_FILTER_WHERE + " LIMIT :cap) capped",
+      nativeQuery = true)
+  long countSearchAndFilterCapped(
+      @Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase,
+      @Param("cameraId") String cameraId,
+      @Param("category") String category,
+      @Param("name") String name,
+      @Param("location") String location,
+      @Param("dateFrom") String dateFrom,
+      @Param("dateTo") String dateTo,
+      @Param("status") String status,
+      @Param("type") String type,
+      @Param("cap") long cap
+  );
+
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_BY_KEYWORD_WHERE,
+      countQuery = "SELECT COUNT(*) FROM infra_objects " + SEARCH_BY_KEYWORD_WHERE,
+      nativeQuery = true)
+  Page<InfraObject> searchByKeyword(@Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase, Pageable pageable);
+
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_BY_KEYWORD_WHERE, nativeQuery = true)
+  List<InfraObject> searchByKeywordContent(@Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase, Pageable pageable);
+
+  @Query(value = "SELECT COUNT(*) FROM (SELECT 1 FROM infra_objects " + SEARCH_BY_KEYWORD_WHERE + " LIMIT :cap) capped",
+      nativeQuery = true)
+  long countSearchByKeywordCapped(@Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase, @Param("cap") long cap);
+
+  // keyset pagination: rows strictly after the (date_captured, id) of the last row of the previous page,
+  // rows without date_captured come first (DESC puts nulls first) and are sent with an empty cursorTime
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_AND_FILTER_WHERE + """
+        AND (COALESCE(:cursorId, '') = ''
+            OR (COALESCE(:cursorTime, '') = '' AND (date_captured IS NOT NULL OR id < :cursorId))
+            OR (date_captured, id) < (CAST(NULLIF(:cursorTime, '') AS timestamp), :cursorId))
+        ORDER BY date_captured DESC, id DESC
+        LIMIT :limit
     """,
-      countQuery = """
-    SELECT infra_objects.* FROM infra_objects join infra_info on infra_objects.info_id = infra_info.id
-    WHERE NOT EXISTS (
-        SELECT 1 
-        FROM regexp_split_to_table(unaccent(:keyword), '\\s*,\\s*') AS phrase
-        WHERE unaccent(replace(CONCAT_WS('', location, name, category, additional_data, key_id, status, TO_CHAR(date_captured, 'DD/MM/YYYY')),' ','')) 
-        NOT ILIKE '%' || replace(phrase,' ','') || '%'
-    )
+      nativeQuery = true)
+  List<InfraObject> searchAndFilterAfter(
+      @Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase,
+      @Param("cameraId") String cameraId,
+      @Param("category") String category,
+      @Param("name") String name,
+      @Param("location") String location,
+      @Param("dateFrom") String dateFrom,
+      @Param("dateTo") String dateTo,
+      @Param("status") String status,
+      @Param("type") String type,
+      @Param("cursorTime") String cursorTime,
+      @Param("cursorId") String cursorId,
+      @Param("limit") int limit
+  );
+
+  @Query(value = "SELECT infra_objects.* FROM infra_objects " + SEARCH_BY_KEYWORD_WHERE + """
+        AND (COALESCE(:cursorId, '') = ''
+            OR (COALESCE(:cursorTime, '') = '' AND (date_captured IS NOT NULL OR id < :cursorId))
+            OR (date_captured, id) < (CAST(NULLIF(:cursorTime, '') AS timestamp), :cursorId))
+        ORDER BY date_captured DESC, id DESC
+        LIMIT :limit
     """,
       nativeQuery = true)
-  Page<InfraObject> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+  List<InfraObject> searchByKeywordAfter(@Param("keyword") String keyword,
+      @Param("keywordPhrase") String keywordPhrase, @Param("cursorTime") String cursorTime,
+      @Param("cursorId") String cursorId, @Param("limit") int limit);
 
+  // planner statistics, -1 if the table was never analyzed
+  @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = 'infra_objects'", nativeQuery = true)
+  long estimateTotalRows();
+
+  @EntityGraph(attributePaths = {"info", "image"})
   List<InfraObject> findInfraObjectByCameraId(@Param("cameraId") String cameraId);
 
+  // keyset page of a camera's objects for the streamed report
+  @EntityGraph(attributePaths = {"info", "image"})
+  @Query("SELECT o FROM InfraObject o WHERE o.cameraId = :cameraId AND o.id > :afterId ORDER BY o.id")
+  List<InfraObject> findReportPage(@Param("cameraId") String cameraId, @Param("afterId") String afterId,
+      Pageable pageable);
+
+  @Query("""
+    SELECT new com.example.infrastructure_service.dto.InfraLocation(
+        o.id, o.cameraId, o.category, o.name, o.latitude, o.longitude
+    )
+    FROM InfraObject o
+    """)
+  List<InfraLocation> findAllLocations();
+
+  @Query("""
+    SELECT new com.example.infrastructure_service.dto.PendingLocation(o.id, o.latitude, o.longitude,
+        o.locationAttempts)
+    FROM InfraObject o
+    WHERE o.locationPending = true AND o.latitude IS NOT NULL AND o.longitude IS NOT NULL
+      AND (o.locationRetryAt IS NULL OR o.locationRetryAt <= :now)
+    """)
+  List<PendingLocation> findPendingLocations(@Param("now") LocalDateTime now, Pageable pageable);
+
+  long countByLocationPendingTrue();
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE InfraObject o SET o.location = :location, o.locationPending = false WHERE o.id IN :ids")
+  int updateLocation(@Param("ids") List<String> ids, @Param("location") String location);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE InfraObject o SET o.locationAttempts = :attempts, o.locationRetryAt = :retryAt WHERE o.id IN :ids")
+  int scheduleLocationRetry(@Param("ids") List<String> ids, @Param("attempts") int attempts,
+      @Param("retryAt") LocalDateTime retryAt);
+
 }
 //CREATE EXTENSION IF NOT EXISTS unaccent;
 //create index for table
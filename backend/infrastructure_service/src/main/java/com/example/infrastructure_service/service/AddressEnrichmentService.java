@@ -0,0 +1,183 @@
+package com.example.infrastructure_service.service;
+
+import com.example.infrastructure_service.dto.PendingLocation;
+import com.example.infrastructure_service.exception.GeocodingUnavailableException;
+import com.example.infrastructure_service.repository.InfraObjectProcessRepository;
+import com.example.infrastructure_service.repository.InfraObjectRepository;
+import com.example.infrastructure_service.utils.Utils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// fills the address of rows saved with locationPending = true, outside of the kafka consumer thread
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AddressEnrichmentService {
+
+  private final InfraObjectProcessRepository infraObjectProcessRepository;
+  private final InfraObjectRepository infraObjectRepository;
+  private final GeocodingService geocodingService;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${infra.enrichment.enabled:true}")
+  private boolean enabled;
+
+  @Value("${infra.enrichment.batch-size:500}")
+  private int batchSize;
+
+  @Value("${infra.enrichment.threads:4}")
+  private int threads;
+
+  @Value("${infra.enrichment.geohash-precision:8}")
+  private int precision;
+
+  @Value("${infra.enrichment.max-attempts:8}")
+  private int maxAttempts;
+
+  @Value("${infra.enrichment.retry-base-ms:30000}")
+  private long retryBaseMs;
+
+  @Value("${infra.enrichment.retry-max-ms:3600000}")
+  private long retryMaxMs;
+
+  private ExecutorService executor;
+  private final AtomicLong processBacklog = new AtomicLong();
+  private final AtomicLong infraBacklog = new AtomicLong();
+
+  @PostConstruct
+  public void init() {
+    executor = Executors.newFixedThreadPool(threads);
+    Gauge.builder("infra.address.enrichment.backlog", processBacklog, AtomicLong::get)
+        .tag("table", "infra_object_process")
+        .description("Rows waiting for reverse geocoding")
+        .register(meterRegistry);
+    Gauge.builder("infra.address.enrichment.backlog", infraBacklog, AtomicLong::get)
+        .tag("table", "infra_objects")
+        .description("Rows waiting for reverse geocoding")
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  @Scheduled(fixedDelayString = "${infra.enrichment.delay-ms:2000}")
+  public void enrichPendingLocations() {
+    if (!enabled) return;
+
+    Pageable batch = PageRequest.of(0, batchSize);
+    LocalDateTime now = LocalDateTime.now();
+    int processUpdated = enrich(infraObjectProcessRepository.findPendingLocations(now, batch),
+        infraObjectProcessRepository::updateLocation, infraObjectProcessRepository::scheduleLocationRetry);
+    int infraUpdated = enrich(infraObjectRepository.findPendingLocations(now, batch),
+        infraObjectRepository::updateLocation, infraObjectRepository::scheduleLocationRetry);
+
+    processBacklog.set(infraObjectProcessRepository.countByLocationPendingTrue());
+    infraBacklog.set(infraObjectRepository.countByLocationPendingTrue());
+
+    if (processUpdated + infraUpdated > 0) {
+      log.info("Enriched address for {} process rows and {} infra objects, backlog {} / {}",
+          processUpdated, infraUpdated, processBacklog.get(), infraBacklog.get());
+    }
+  }
+
+  @FunctionalInterface
+  private interface RetryScheduler {
+    int schedule(List<String> ids, int attempts, LocalDateTime retryAt);
+  }
+
+  // address is "" when the geocoder has no result, error is set when it could not be asked
+  private record CellResult(List<PendingLocation> cell, String address, Exception error) {
+  }
+
+  private int enrich(List<PendingLocation> pending, BiFunction<List<String>, String, Integer> updateLocation,
+      RetryScheduler retryScheduler) {
+    if (pending.isEmpty()) return 0;
+
+    // rows in the same cell get the same address, resolve each cell once
+    Map<String, List<PendingLocation>> byCell = pending.stream()
+        .collect(Collectors.groupingBy(p -> Utils.generateGeoHash(p.latitude(), p.longitude(), precision)));
+
+    List<CompletableFuture<CellResult>> futures = new ArrayList<>();
+    for (List<PendingLocation> cell : byCell.values()) {
+      futures.add(CompletableFuture.supplyAsync(() -> resolve(cell), executor));
+    }
+
+    // one bulk update per address, failed cells stay pending
+    Map<String, List<String>> idsByAddress = new HashMap<>();
+    List<PendingLocation> failed = new ArrayList<>();
+    for (CompletableFuture<CellResult> future : futures) {
+      CellResult result = future.join();
+      if (result.error() == null) {
+        idsByAddress.computeIfAbsent(result.address(), k -> new ArrayList<>())
+            .addAll(result.cell().stream().map(PendingLocation::id).toList());
+      } else if (!(result.error() instanceof GeocodingUnavailableException unavailable && unavailable.isRateLimited())) {
+        failed.addAll(result.cell());
+      }
+      // rate limited cells are left as they are and picked up by the next run
+    }
+
+    int updated = 0;
+    for (Map.Entry<String, List<String>> entry : idsByAddress.entrySet()) {
+      // no result from the geocoder: clear the marker and keep location null, as before
+      String address = entry.getKey().isEmpty() ? null : entry.getKey();
+      updated += updateLocation.apply(entry.getValue(), address);
+    }
+    scheduleRetries(failed, updateLocation, retryScheduler);
+    return updated;
+  }
+
+  // exponential backoff per row, after maxAttempts the row is given up with location null
+  private void scheduleRetries(List<PendingLocation> failed, BiFunction<List<String>, String, Integer> updateLocation,
+      RetryScheduler retryScheduler) {
+    if (failed.isEmpty()) return;
+
+    Map<Integer, List<String>> idsByAttempts = failed.stream()
+        .collect(Collectors.groupingBy(p -> (p.attempts() == null ? 0 : p.attempts()) + 1,
+            Collectors.mapping(PendingLocation::id, Collectors.toList())));
+    LocalDateTime now = LocalDateTime.now();
+    for (Map.Entry<Integer, List<String>> entry : idsByAttempts.entrySet()) {
+      int attempts = entry.getKey();
+      if (attempts >= maxAttempts) {
+        log.warn("Giving up address of {} rows after {} attempts", entry.getValue().size(), attempts);
+        updateLocation.apply(entry.getValue(), null);
+      } else {
+        long delayMs = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+        retryScheduler.schedule(entry.getValue(), attempts, now.plus(Duration.ofMillis(delayMs)));
+      }
+    }
+  }
+
+  private CellResult resolve(List<PendingLocation> cell) {
+    PendingLocation first = cell.get(0);
+    try {
+      String address = geocodingService.resolveAddress(first.latitude(), first.longitude());
+      return new CellResult(cell, address == null ? "" : address, null);
+    } catch (Exception e) {
+      log.warn("Cannot resolve address for {}: {}", first.id(), e.getMessage());
+      return new CellResult(cell, null, e);
+    }
+  }
+}
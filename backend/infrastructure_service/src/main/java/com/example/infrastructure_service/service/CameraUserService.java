@@ -2,32 +2,93 @@ package com.example.infrastructure_service.service;
 
 import com.example.infrastructure_service.client.CameraClient;
 import com.example.infrastructure_service.dto.response.CameraResponse;
-import java.util.ArrayList;
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+// camera ids of each user are cached locally, camera-service publishes on camera-user when camera_user changes
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CameraUserService {
   private final CameraClient cameraClient;
 
-  public List<String> getCameraData(String userId){
-    ResponseEntity<List<CameraResponse>> responses = cameraClient.getCameraByUser(userId);
+  @Value("${infra.camera-acl.ttl-ms:300000}")
+  private long ttlMs;
+
+  @Value("${infra.camera-acl.max-users:10000}")
+  private int maxUsers;
+
+  private Map<String, CachedCameras> cache;
+
+  private record CachedCameras(Set<String> cameraIds, long expiresAt) {
+  }
+
+  @PostConstruct
+  public void init() {
+    cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedCameras> eldest) {
+        return size() > maxUsers;
+      }
+    });
+  }
 
-    return responses.getBody().stream()
-        .map(CameraResponse::getId)
-        .collect(Collectors.toList());
+  public List<String> getCameraData(String userId){
+    return List.copyOf(getCameraIds(userId));
   }
 
   public void checkCameraUser(String cameraId, String userId){
 
-    List<String> cameraIds = getCameraData(userId);
+    // no camera filter, nothing to check
+    if (cameraId == null || cameraId.isEmpty()) {
+      return;
+    }
+
+    if(!getCameraIds(userId).contains(cameraId)) throw new RuntimeException("You dont have access to this camera");
+  }
+
+  public void evict(String userId) {
+    if (userId == null) {
+      cache.clear();
+    } else {
+      cache.remove(userId);
+    }
+  }
+
+  private Set<String> getCameraIds(String userId) {
+    CachedCameras cached = cache.get(userId);
+    long now = System.currentTimeMillis();
+    if (cached != null && cached.expiresAt() > now) {
+      return cached.cameraIds();
+    }
+
+    Set<String> cameraIds;
+    try {
+      ResponseEntity<List<CameraResponse>> responses = cameraClient.getCameraByUser(userId);
+      cameraIds = responses.getBody().stream()
+          .map(CameraResponse::getId)
+          .collect(Collectors.toUnmodifiableSet());
+    } catch (RuntimeException e) {
+      // camera-service is down, an expired entry is better than failing the request
+      if (cached != null) {
+        log.warn("Camera service unavailable, using expired camera list of user {}: {}", userId, e.getMessage());
+        return cached.cameraIds();
+      }
+      throw e;
+    }
 
-    if(!cameraIds.contains(cameraId) && cameraId!=null && !cameraId.isEmpty()) throw new RuntimeException("You dont have access to this camera");
+    cache.put(userId, new CachedCameras(cameraIds, now + ttlMs));
+    return cameraIds;
   }
 
 }
@@ -1,12 +1,15 @@
 package com.example.infrastructure_service.service;
 
 import com.example.infrastructure_service.client.MinioService;
+import com.example.infrastructure_service.dto.Cursor;
+import com.example.infrastructure_service.dto.TimeRange;
 import com.example.infrastructure_service.enums.EventStatus;
 import com.example.infrastructure_service.exception.CustomRuntimeException;
 import com.example.infrastructure_service.model.Event;
 import com.example.infrastructure_service.model.InfraObject;
 import com.example.infrastructure_service.repository.EventRepository;
 import com.example.infrastructure_service.repository.InfraObjectRepository;
+import com.example.infrastructure_service.utils.Utils;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -51,8 +54,8 @@ public class EventService {
 
   public Page<Event> getFilterEvents(
       Pageable pageable,
-      String startTime,
-      String endTime,
+      TimeRange capturedRange,
+      TimeRange endRange,
       String eventStatus,
       String status,
       String category,
@@ -70,8 +73,10 @@ public class EventService {
 
     return eventRepository.getEventByFilterAndKeyword(
         pageable,
-        startTime,
-        endTime,
+        capturedRange.fromParam(),
+        capturedRange.toParam(),
+        endRange.fromParam(),
+        endRange.toParam(),
         eventStatus,
         status,
         category,
@@ -79,11 +84,52 @@ public class EventService {
         cameraId,
         location,
         keyword,
+        Utils.longestKeywordPhrase(keyword),
         confidence,
         level
     );
   }
 
+  public List<Event> getFilterEventsAfter(
+      Cursor cursor,
+      int limit,
+      TimeRange capturedRange,
+      TimeRange endRange,
+      String eventStatus,
+      String status,
+      String category,
+      String name,
+      String cameraId,
+      String location,
+      String keyword,
+      Double confidence,
+      Integer level,
+      String userId
+  ) {
+
+    cameraUserService.checkCameraUser(cameraId, userId);
+
+    return eventRepository.getEventByFilterAndKeywordAfter(
+        capturedRange.fromParam(),
+        capturedRange.toParam(),
+        endRange.fromParam(),
+        endRange.toParam(),
+        eventStatus,
+        status,
+        category,
+        name,
+        cameraId,
+        location,
+        keyword,
+        Utils.longestKeywordPhrase(keyword),
+        confidence,
+        level,
+        cursor == null ? null : cursor.timeParam(),
+        cursor == null ? null : cursor.id(),
+        limit
+    );
+  }
+
   public Event getEventById(String id) {
     return eventRepository.findById(id).orElseThrow(() -> new RuntimeException("Event not found"));
   }
@@ -20,6 +20,7 @@ public class FakeEventService {
   private final EventRepository eventRepository;
   private final InfraObjectRepository infraObjectRepository;
   private final HistoryRepository historyRepository;
+  private final InfraSpatialIndex infraSpatialIndex;
 
   @Transactional
   public FakeEvent updateFakeEvent(String id) {
@@ -73,6 +74,7 @@ public class FakeEventService {
       historyRepository.deleteAllByInfraObject(event.getInfraObject());
       eventRepository.delete(event);
       infraObjectRepository.delete(event.getInfraObject());
+      infraSpatialIndex.removeAfterCommit(event.getInfraObject().getId());
     }
 
   }
@@ -0,0 +1,164 @@
+package com.example.infrastructure_service.service;
+
+import com.example.infrastructure_service.client.MapClient;
+import com.example.infrastructure_service.exception.GeocodingUnavailableException;
+import com.example.infrastructure_service.utils.TokenBucket;
+import com.example.infrastructure_service.utils.Utils;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+// reverse geocoding in front of MapClient: local LRU -> redis -> rate limited upstream call
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeocodingService {
+
+  private static final String REDIS_PREFIX = "geocode:";
+
+  private final MapClient mapClient;
+  private final RedisTemplate<String, String> redisTemplate;
+
+  // precision 8 is a cell of about 38m x 19m, consecutive detections on the same road share the address
+  @Value("${infra.geocoding.precision:8}")
+  private int precision;
+
+  @Value("${infra.geocoding.local-size:10000}")
+  private int localSize;
+
+  @Value("${infra.geocoding.redis.enabled:true}")
+  private boolean redisEnabled;
+
+  @Value("${infra.geocoding.redis.ttl-hours:720}")
+  private long redisTtlHours;
+
+  @Value("${infra.geocoding.rate-per-second:10}")
+  private double ratePerSecond;
+
+  @Value("${infra.geocoding.rate-wait-ms:5000}")
+  private long rateWaitMs;
+
+  private Map<String, String> localCache;
+  private TokenBucket tokenBucket;
+  private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    localCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > localSize;
+      }
+    });
+    tokenBucket = new TokenBucket(Math.max(1, (long) ratePerSecond), ratePerSecond);
+  }
+
+  // only the local tier, never blocks, null if the cell is not cached yet
+  public String getCachedAddress(double latitude, double longitude) {
+    return localCache.get(Utils.generateGeoHash(latitude, longitude, precision));
+  }
+
+  // null when the address cannot be resolved now or at all
+  public String getAddress(double latitude, double longitude) {
+    try {
+      return resolveAddress(latitude, longitude);
+    } catch (GeocodingUnavailableException e) {
+      log.warn("Cannot resolve address for {}, {}: {}", latitude, longitude, e.getMessage());
+      return null;
+    }
+  }
+
+  // null only when the geocoder has no address for the location,
+  // throws GeocodingUnavailableException when it could not be asked so the caller can retry later
+  public String resolveAddress(double latitude, double longitude) {
+    String cell = Utils.generateGeoHash(latitude, longitude, precision);
+
+    String address = localCache.get(cell);
+    if (address != null) {
+      return address;
+    }
+
+    // concurrent lookups for the same cell wait for the first one
+    CompletableFuture<String> future = new CompletableFuture<>();
+    CompletableFuture<String> existing = inFlight.putIfAbsent(cell, future);
+    if (existing != null) {
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+
+    try {
+      address = load(cell, latitude, longitude);
+      future.complete(address);
+      return address;
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(cell, future);
+    }
+  }
+
+  private String load(String cell, double latitude, double longitude) {
+    String address = getFromRedis(cell);
+    if (address == null) {
+      address = fetch(latitude, longitude);
+      if (address != null) {
+        putToRedis(cell, address);
+      }
+    }
+    // null means the upstream had no result, it is not cached so it is retried next time
+    if (address != null) {
+      localCache.put(cell, address);
+    }
+    return address;
+  }
+
+  private String fetch(double latitude, double longitude) {
+    try {
+      if (!tokenBucket.tryAcquire(rateWaitMs, TimeUnit.MILLISECONDS)) {
+        throw new GeocodingUnavailableException("Geocoding rate limit reached", true);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new GeocodingUnavailableException("Interrupted while waiting for the geocoding rate limit", true);
+    }
+    try {
+      return mapClient.findAddress(latitude, longitude);
+    } catch (RuntimeException e) {
+      throw new GeocodingUnavailableException(e.getMessage(), false);
+    }
+  }
+
+  private String getFromRedis(String cell) {
+    if (!redisEnabled) return null;
+    try {
+      return redisTemplate.opsForValue().get(REDIS_PREFIX + cell);
+    } catch (Exception e) {
+      log.warn("Cannot read geocoding cache from redis: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private void putToRedis(String cell, String address) {
+    if (!redisEnabled) return;
+    try {
+      redisTemplate.opsForValue().set(REDIS_PREFIX + cell, address, Duration.ofHours(redisTtlHours));
+    } catch (Exception e) {
+      log.warn("Cannot write geocoding cache to redis: {}", e.getMessage());
+    }
+  }
+}
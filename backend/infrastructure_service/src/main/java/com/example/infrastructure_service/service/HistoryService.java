@@ -1,10 +1,10 @@
 package com.example.infrastructure_service.service;
 
+import com.example.infrastructure_service.dto.TimeRange;
 import com.example.infrastructure_service.model.History;
 import com.example.infrastructure_service.model.InfraObject;
 import com.example.infrastructure_service.repository.HistoryRepository;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -31,7 +31,9 @@ public class HistoryService {
   }
 
   public List<History> getHistoriesByCamAndDate(String cameraId, LocalDate startTime, LocalDate endTime) {
-    return historyRepository.findByCameraAndDate(cameraId, startTime, endTime);
+    // either date may be omitted, the range stays open on that side
+    TimeRange range = TimeRange.ofDays(startTime, endTime);
+    return historyRepository.findByCameraAndDate(cameraId, range.from(), range.to());
   }
 
   public List<History> getHistoriesByInfra(String infraId){
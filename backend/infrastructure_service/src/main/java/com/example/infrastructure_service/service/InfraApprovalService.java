@@ -0,0 +1,283 @@
+package com.example.infrastructure_service.service;
+
+import com.example.infrastructure_service.enums.EventStatus;
+import com.example.infrastructure_service.enums.ProcessStatus;
+import com.example.infrastructure_service.model.Event;
+import com.example.infrastructure_service.model.History;
+import com.example.infrastructure_service.model.InfraImage;
+import com.example.infrastructure_service.model.InfraInfo;
+import com.example.infrastructure_service.model.InfraObject;
+import com.example.infrastructure_service.model.InfraObjectProcess;
+import com.example.infrastructure_service.repository.EventRepository;
+import com.example.infrastructure_service.repository.InfraObjectProcessRepository;
+import com.example.infrastructure_service.repository.InfraObjectRepository;
+import com.example.infrastructure_service.utils.Utils;
+import jakarta.persistence.EntityManager;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// set-based version of InfraProcessingService.processOneInfraObject for approving a whole schedule
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InfraApprovalService {
+
+  private static final int ID_CHUNK = 1000;
+
+  private static final String INSERT_EVENT = """
+      INSERT INTO event (id, infra_object_id, date_captured, end_time, status, level, confidence, event_status,
+          schedule_id, bbox, real_width, real_height, image_id)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      """;
+  private static final int[] EVENT_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP,
+      Types.VARCHAR, Types.INTEGER, Types.DOUBLE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE,
+      Types.DOUBLE, Types.BIGINT};
+
+  private static final String INSERT_HISTORY = """
+      INSERT INTO history (infra_object_id, date_captured, status, confidence, level, schedule_id, bbox,
+          real_width, real_height, image_id)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+      """;
+  private static final int[] HISTORY_TYPES = {Types.VARCHAR, Types.TIMESTAMP, Types.VARCHAR, Types.DOUBLE,
+      Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.BIGINT};
+
+  // infra_info ids are an identity column, hibernate inserts those one by one. ids are taken from its sequence
+  // in one query and the rows inserted as a jdbc batch before the objects
+  private static final String NEXT_INFO_IDS =
+      "SELECT nextval(pg_get_serial_sequence('infra_info', 'id')) FROM generate_series(1, ?)";
+
+  private static final String INSERT_INFO = """
+      INSERT INTO infra_info (id, key_id, original_image, avatar, manage_unit, additional_data, create_at)
+      VALUES (?, ?, ?, ?, ?, ?, ?)
+      """;
+  private static final int[] INFO_TYPES = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+      Types.VARCHAR, Types.TIMESTAMP};
+
+  private final InfraObjectProcessRepository infraObjectProcessRepository;
+  private final InfraObjectRepository infraObjectRepository;
+  private final EventRepository eventRepository;
+  private final NotificationService notificationService;
+  private final InfraSpatialIndex infraSpatialIndex;
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManager entityManager;
+
+  @Transactional
+  public List<InfraObjectProcess> approveAllBySchedule(String scheduleId) {
+    List<InfraObjectProcess> items = infraObjectProcessRepository.findForApproval(scheduleId, ProcessStatus.PENDING);
+    if (items.isEmpty()) {
+      return items;
+    }
+
+    // prefetch the last event of every existing object
+    Set<String> infraIds = new LinkedHashSet<>();
+    for (InfraObjectProcess item : items) {
+      if (item.getInfraObject() != null) {
+        infraIds.add(item.getInfraObject().getId());
+      }
+    }
+    Map<String, Event> lastEvents = findLastEvents(infraIds);
+
+    List<InfraObject> newInfraObjects = new ArrayList<>();
+    List<InfraObject> touchedInfraObjects = new ArrayList<>();
+    List<History> histories = new ArrayList<>();
+    List<Event> newEvents = new ArrayList<>();
+    List<Map.Entry<Event, EventStatus>> notifications = new ArrayList<>();
+
+    for (InfraObjectProcess item : items) {
+      InfraObject existedInfra = item.getInfraObject();
+      if (existedInfra == null) {
+        InfraObject infraObject = toInfraObject(item);
+        newInfraObjects.add(infraObject);
+        histories.add(toHistory(infraObject));
+        Event event = toEvent(infraObject, EventStatus.NEW);
+        newEvents.add(event);
+        notifications.add(Map.entry(event, EventStatus.NEW));
+      } else {
+        Event lastEvent = lastEvents.get(existedInfra.getId());
+
+        // neu nhu dang co su kien sua chua thi ko cap that vao
+        if (lastEvent != null && EventStatus.REPAIR.toString().equals(lastEvent.getEventStatus())
+            && lastEvent.getEndTime() == null) {
+          item.setProcessStatus(ProcessStatus.APPROVED);
+          continue;
+        }
+
+        boolean differentStatus = !existedInfra.getStatus().equals(item.getStatus());
+
+        existedInfra.setScheduleId(item.getScheduleId());
+        existedInfra.setStatus(item.getStatus());
+        existedInfra.setName(item.getName());
+        existedInfra.setImage(item.getImage());
+        existedInfra.setDateCaptured(item.getDateCaptured());
+        touchedInfraObjects.add(existedInfra);
+        histories.add(toHistory(existedInfra));
+
+        if (differentStatus) {
+          if (lastEvent == null) {
+            throw new RuntimeException("Last event not found");
+          }
+          lastEvent.setEndTime(item.getDateCaptured());
+          Event event = toEvent(existedInfra, EventStatus.UPDATED);
+          newEvents.add(event);
+          notifications.add(Map.entry(event, EventStatus.UPDATED));
+          lastEvents.put(existedInfra.getId(), event);
+        }
+      }
+      item.setProcessStatus(ProcessStatus.APPROVED);
+    }
+
+    // new objects get their ids here, updates of managed objects and last events are flushed as jdbc batches
+    insertInfos(newInfraObjects);
+    infraObjectRepository.saveAll(newInfraObjects);
+    infraObjectRepository.flush();
+
+    jdbcTemplate.batchUpdate(INSERT_HISTORY, histories.stream().map(this::historyArgs).toList(), HISTORY_TYPES);
+    jdbcTemplate.batchUpdate(INSERT_EVENT, newEvents.stream().map(this::eventArgs).toList(), EVENT_TYPES);
+
+    List<InfraObjectProcess> saved = infraObjectProcessRepository.saveAll(items);
+    log.info("Approved {} process items of schedule {}: {} new objects, {} events", items.size(), scheduleId,
+        newInfraObjects.size(), newEvents.size());
+
+    afterCommit(() -> {
+      newInfraObjects.forEach(infraSpatialIndex::put);
+      touchedInfraObjects.forEach(infraSpatialIndex::put);
+      notifications.forEach(n -> notificationService.createEventNotification(n.getKey(), n.getValue()));
+    });
+    return saved;
+  }
+
+  // the objects get a reference to the inserted row, so the cascade does not insert it again
+  private void insertInfos(List<InfraObject> infraObjects) {
+    if (infraObjects.isEmpty()) {
+      return;
+    }
+    List<Long> ids = jdbcTemplate.queryForList(NEXT_INFO_IDS, Long.class, infraObjects.size());
+    List<Object[]> args = new ArrayList<>(infraObjects.size());
+    for (int i = 0; i < infraObjects.size(); i++) {
+      InfraObject infraObject = infraObjects.get(i);
+      InfraInfo info = infraObject.getInfo();
+      args.add(new Object[]{ids.get(i), info.getKeyId(), info.getOriginalImage(), info.getAvatar(),
+          info.getManageUnit(), info.getAdditionalData(), info.getCreateAt()});
+      infraObject.setInfo(entityManager.getReference(InfraInfo.class, ids.get(i)));
+    }
+    jdbcTemplate.batchUpdate(INSERT_INFO, args, INFO_TYPES);
+  }
+
+  private Map<String, Event> findLastEvents(Set<String> infraIds) {
+    Map<String, Event> lastEvents = new HashMap<>();
+    List<String> ids = new ArrayList<>(infraIds);
+    for (int i = 0; i < ids.size(); i += ID_CHUNK) {
+      for (Event event : eventRepository.findLastEvents(ids.subList(i, Math.min(i + ID_CHUNK, ids.size())))) {
+        lastEvents.put(event.getInfraObject().getId(), event);
+      }
+    }
+    return lastEvents;
+  }
+
+  private InfraObject toInfraObject(InfraObjectProcess item) {
+    InfraObject infraObject = InfraObject.builder()
+        .cameraId(item.getCameraId())
+        .dateCaptured(item.getDateCaptured())
+        .latitude(item.getLatitude())
+        .longitude(item.getLongitude())
+        .category(item.getCategory())
+        .name(item.getName())
+        .status(item.getStatus())
+        .confidence(item.getConfidence())
+        .level(item.getLevel())
+        .scheduleId(item.getScheduleId())
+        .bbox(item.getBbox())
+        .realWidth(item.getRealWidth())
+        .realHeight(item.getRealHeight())
+        .isUpdated(true)
+        .type(item.getType())
+        .location(item.getLocation())
+        .locationPending(item.getLocation() == null)
+        .image(item.getImage())
+        .build();
+
+    InfraInfo infraInfo = new InfraInfo();
+    infraInfo.setCreateAt(LocalDateTime.now());
+    infraInfo.setKeyId(item.getCategory() + "-" + Utils.generateGeoHash(item.getLatitude(),
+        item.getLongitude(), 9));
+    infraObject.setInfo(infraInfo);
+    return infraObject;
+  }
+
+  private History toHistory(InfraObject infraObject) {
+    History history = new History();
+    history.setScheduleId(infraObject.getScheduleId());
+    history.setInfraObject(infraObject);
+    history.setConfidence(infraObject.getConfidence());
+    history.setImage(infraObject.getImage());
+    history.setLevel(infraObject.getLevel());
+    history.setDateCaptured(infraObject.getDateCaptured());
+    history.setStatus(infraObject.getStatus());
+    history.setBbox(infraObject.getBbox());
+    history.setRealWidth(infraObject.getRealWidth());
+    history.setRealHeight(infraObject.getRealHeight());
+    return history;
+  }
+
+  private Event toEvent(InfraObject infraObject, EventStatus eventStatus) {
+    Event event = new Event();
+    event.setId(UUID.randomUUID().toString());
+    event.setDateCaptured(infraObject.getDateCaptured());
+    event.setScheduleId(infraObject.getScheduleId());
+    event.setImage(infraObject.getImage());
+    event.setInfraObject(infraObject);
+    event.setStatus(infraObject.getStatus());
+    event.setLevel(infraObject.getLevel());
+    event.setBbox(infraObject.getBbox());
+    event.setEventStatus(eventStatus.toString());
+    event.setConfidence(infraObject.getConfidence());
+    event.setRealWidth(infraObject.getRealWidth());
+    event.setRealHeight(infraObject.getRealHeight());
+    return event;
+  }
+
+  private Object[] historyArgs(History history) {
+    return new Object[]{history.getInfraObject().getId(), history.getDateCaptured(), history.getStatus(),
+        history.getConfidence(), history.getLevel(), history.getScheduleId(), history.getBbox(),
+        history.getRealWidth(), history.getRealHeight(), imageId(history.getImage())};
+  }
+
+  private Object[] eventArgs(Event event) {
+    // end time is set when a later item of the same schedule closes this event
+    return new Object[]{event.getId(), event.getInfraObject().getId(), event.getDateCaptured(), event.getEndTime(),
+        event.getStatus(),
+        event.getLevel(), event.getConfidence(), event.getEventStatus(), event.getScheduleId(), event.getBbox(),
+        event.getRealWidth(), event.getRealHeight(), imageId(event.getImage())};
+  }
+
+  private Long imageId(InfraImage image) {
+    return image == null ? null : image.getId();
+  }
+
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+}
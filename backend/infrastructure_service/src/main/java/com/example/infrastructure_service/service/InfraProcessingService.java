@@ -1,6 +1,5 @@
 package com.example.infrastructure_service.service;
 
-import com.example.infrastructure_service.client.MapClient;
 import com.example.infrastructure_service.enums.ProcessStatus;
 import com.example.infrastructure_service.model.Event;
 import com.example.infrastructure_service.enums.EventStatus;
@@ -25,10 +24,11 @@ public class InfraProcessingService {
 
   private final InfraObjectRepository infraObjectRepository;
   private final EventRepository eventRepository;
-  private final MapClient mapClient;
   private final EventService eventService;
   private final HistoryService historyService;
   private final InfraObjectProcessRepository infraObjectProcessRepository;
+  private final InfraSpatialIndex infraSpatialIndex;
+  private final InfraApprovalService infraApprovalService;
 
   protected void processOneInfraObject(InfraObjectProcess item) {
     InfraObject existedInfra = item.getInfraObject();
@@ -51,7 +51,8 @@ public class InfraProcessingService {
           .realHeight(item.getRealHeight())
           .isUpdated(true)
           .type(item.getType())
-          .location(mapClient.getAddress(item.getLatitude(), item.getLongitude()))
+          .location(item.getLocation())
+          .locationPending(item.getLocation() == null)
           .image(item.getImage())
           .build();
 
@@ -61,6 +62,7 @@ public class InfraProcessingService {
           item.getLongitude(), 9));
       infraObject.setInfo(infraInfo);
       InfraObject saveInfraObject = infraObjectRepository.save(infraObject);
+      infraSpatialIndex.putAfterCommit(saveInfraObject);
 
       historyService.saveHistoryInfra(saveInfraObject);
       eventService.createEvent(saveInfraObject, true, EventStatus.NEW);
@@ -84,6 +86,7 @@ public class InfraProcessingService {
       existedInfra.setImage(item.getImage());
       existedInfra.setDateCaptured(item.getDateCaptured());
       InfraObject saveExistInfra = infraObjectRepository.save(existedInfra);
+      infraSpatialIndex.putAfterCommit(saveExistInfra);
 
       historyService.saveHistoryInfra(saveExistInfra);
 
@@ -101,13 +104,27 @@ public class InfraProcessingService {
   }
 
 
-  // find the nearest infra object around radius 50m
+  // find the nearest infra object around radius 5m
   public InfraObject findByLocation(String cameraId, String category, String name, Double latitude,
       Double longitude) {
+    if (infraSpatialIndex.isReady()) {
+      String infraId = infraSpatialIndex.findNearestId(cameraId, category, name, latitude, longitude, 5.0);
+      return infraId == null ? null : infraObjectRepository.findById(infraId).orElse(null);
+    }
     return infraObjectRepository.findNearestInfraWithinRadius(cameraId, category, name, latitude,
         longitude, 5.0);
   }
 
+  // same as findByLocation but only returns a reference, used on ingest where just the foreign key is needed
+  public InfraObject findReferenceByLocation(String cameraId, String category, String name, Double latitude,
+      Double longitude) {
+    if (infraSpatialIndex.isReady()) {
+      String infraId = infraSpatialIndex.findNearestId(cameraId, category, name, latitude, longitude, 5.0);
+      return infraId == null ? null : infraObjectRepository.getReferenceById(infraId);
+    }
+    return findByLocation(cameraId, category, name, latitude, longitude);
+  }
+
   public List<InfraObjectProcess> getInfraObjectProcessBySchedule(String scheduleId, String status, String processStatus, String eventStatus) {
     return infraObjectProcessRepository.filterInfraProcess(scheduleId, status, processStatus, eventStatus);
   }
@@ -136,11 +153,6 @@ public class InfraProcessingService {
   }
 
   public List<InfraObjectProcess> processAllInfraBySchedule(String scheduleId) {
-    List<InfraObjectProcess> infraObjectProcesses = infraObjectProcessRepository.findByScheduleIdAndProcessStatus(scheduleId, ProcessStatus.PENDING);
-    for (InfraObjectProcess infraObjectProcess : infraObjectProcesses) {
-      processOneInfraObject(infraObjectProcess);
-      infraObjectProcess.setProcessStatus(ProcessStatus.APPROVED);
-    }
-    return infraObjectProcessRepository.saveAll(infraObjectProcesses);
+    return infraApprovalService.approveAllBySchedule(scheduleId);
   }
 }
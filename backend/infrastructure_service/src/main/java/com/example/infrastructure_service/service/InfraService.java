@@ -1,11 +1,13 @@
 package com.example.infrastructure_service.service;
 
 import com.example.infrastructure_service.client.CameraClient;
-import com.example.infrastructure_service.client.MapClient;
 import com.example.infrastructure_service.client.MinioService;
+import com.example.infrastructure_service.dto.Cursor;
 import com.example.infrastructure_service.dto.InfraLogRecord;
+import com.example.infrastructure_service.dto.TimeRange;
 import com.example.infrastructure_service.dto.request.NewInfraRequest;
 import com.example.infrastructure_service.dto.request.UpdateInfraRequest;
+import com.example.infrastructure_service.dto.response.EstimatedPage;
 import com.example.infrastructure_service.enums.EventStatus;
 import com.example.infrastructure_service.enums.InfraType;
 import com.example.infrastructure_service.model.InfraImage;
@@ -17,8 +19,11 @@ import com.example.infrastructure_service.utils.Utils;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -32,27 +37,65 @@ public class InfraService {
 
   private final InfraObjectRepository infraObjectRepository;
   private final CameraUserService cameraUserService;
-  private final MapClient mapClient;
+  private final GeocodingService geocodingService;
   private final MinioService minioService;
   private final EventService eventService;
+  private final InfraSpatialIndex infraSpatialIndex;
+
+  @Value("${infra.search.count-cap:10000}")
+  private long countCap;
 
   // filter image
   public Page<InfraObject> getFilterInfraObject(
       Pageable pageable,
       String name,
       String location,
-      String dateCaptured,
+      TimeRange dateRange,
       String status,
       String category,
       String cameraId,
       String userId,
       String keyword,
-      String type
+      String type,
+      boolean estimateCount
   ) {
     
     cameraUserService.checkCameraUser(cameraId, userId);
 
-    return infraObjectRepository.searchAndFilter(keyword, cameraId,category, name, location, dateCaptured, status, pageable, type);
+    String keywordPhrase = Utils.longestKeywordPhrase(keyword);
+    if (!estimateCount || pageable.isUnpaged()) {
+      return infraObjectRepository.searchAndFilter(keyword, keywordPhrase, cameraId, category, name, location,
+          dateRange.fromParam(), dateRange.toParam(), status, pageable, type);
+    }
+
+    List<InfraObject> content = infraObjectRepository.searchAndFilterContent(keyword, keywordPhrase, cameraId, category,
+        name, location, dateRange.fromParam(), dateRange.toParam(), status, pageable, type);
+    boolean unfiltered = dateRange.isUnbounded() && Stream.of(keyword, cameraId, category, name, location, status, type)
+        .allMatch(value -> value == null || value.isBlank());
+    return estimatedPage(content, pageable, unfiltered, () -> infraObjectRepository.countSearchAndFilterCapped(
+        keyword, keywordPhrase, cameraId, category, name, location, dateRange.fromParam(), dateRange.toParam(), status,
+        type, countCap));
+  }
+
+  public List<InfraObject> getFilterInfraObjectAfter(
+      Cursor cursor,
+      int limit,
+      String name,
+      String location,
+      TimeRange dateRange,
+      String status,
+      String category,
+      String cameraId,
+      String userId,
+      String keyword,
+      String type
+  ) {
+
+    cameraUserService.checkCameraUser(cameraId, userId);
+
+    return infraObjectRepository.searchAndFilterAfter(keyword, Utils.longestKeywordPhrase(keyword), cameraId, category,
+        name, location, dateRange.fromParam(), dateRange.toParam(), status, type,
+        cursor == null ? null : cursor.timeParam(), cursor == null ? null : cursor.id(), limit);
   }
 
   public InfraObject findById(String id) {
@@ -80,11 +123,42 @@ public class InfraService {
   }
 
 
-  public Page<InfraObject> searchByKeyword(String keyword, int page, int size) {
+  public Page<InfraObject> searchByKeyword(String keyword, int page, int size, boolean estimateCount) {
 
     Pageable pageable = PageRequest.of(page, size);
+    String keywordPhrase = Utils.longestKeywordPhrase(keyword);
+
+    if (!estimateCount) {
+      return infraObjectRepository.searchByKeyword(keyword, keywordPhrase, pageable);
+    }
+
+    List<InfraObject> content = infraObjectRepository.searchByKeywordContent(keyword, keywordPhrase, pageable);
+    return estimatedPage(content, pageable, keyword == null || keyword.isBlank(),
+        () -> infraObjectRepository.countSearchByKeywordCapped(keyword, keywordPhrase, countCap));
+  }
 
-    return infraObjectRepository.searchByKeyword(keyword, pageable);
+  public List<InfraObject> searchByKeywordAfter(String keyword, Cursor cursor, int limit) {
+    return infraObjectRepository.searchByKeywordAfter(keyword, Utils.longestKeywordPhrase(keyword),
+        cursor == null ? null : cursor.timeParam(), cursor == null ? null : cursor.id(), limit);
+  }
+
+  // exact total while it is below countCap, above that the capped count (or table statistics when nothing
+  // is filtered) is returned and flagged as estimated
+  private Page<InfraObject> estimatedPage(List<InfraObject> content, Pageable pageable, boolean unfiltered,
+      LongSupplier cappedCount) {
+    if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+      return new EstimatedPage<>(content, pageable, content.size(), false);
+    }
+
+    if (unfiltered) {
+      long estimate = infraObjectRepository.estimateTotalRows();
+      if (estimate >= 0) {
+        return new EstimatedPage<>(content, pageable, estimate, true);
+      }
+    }
+
+    long count = cappedCount.getAsLong();
+    return new EstimatedPage<>(content, pageable, count, count >= countCap);
   }
 
   public List<InfraObject> getLostInfraObject() {
@@ -111,7 +185,7 @@ public class InfraService {
         )
         .build();
 
-    String address = mapClient.getAddress(request.getLatitude(), request.getLongitude());
+    String address = geocodingService.getAddress(request.getLatitude(), request.getLongitude());
     infraObject.setLocation(address);
 
     InfraInfo infraInfo = new InfraInfo();
@@ -135,6 +209,7 @@ public class InfraService {
     infraObject.setInfo(infraInfo);
 
     InfraObject saveInfra = infraObjectRepository.save(infraObject);
+    infraSpatialIndex.putAfterCommit(saveInfra);
 
     eventService.createEvent(saveInfra, false, EventStatus.CREATED);
 
@@ -154,7 +229,7 @@ public class InfraService {
     if (request.getLatitude() != infraObject.getLatitude() && request.getLongitude() != infraObject.getLongitude()) {
       infraObject.setLatitude(request.getLatitude());
       infraObject.setLongitude(request.getLongitude());
-      infraObject.setLocation(mapClient.getAddress(request.getLatitude(), request.getLongitude()));
+      infraObject.setLocation(geocodingService.getAddress(request.getLatitude(), request.getLongitude()));
       infraObject.getInfo().setKeyId(request.getCategory() + "-" + Utils.generateGeoHash(request.getLatitude(),request.getLongitude(), 9));
     }
 
@@ -175,11 +250,14 @@ public class InfraService {
 
     eventService.createEvent(infraObject, false, EventStatus.UPDATED);
 
-    return infraObjectRepository.save(infraObject);
+    InfraObject saveInfra = infraObjectRepository.save(infraObject);
+    infraSpatialIndex.putAfterCommit(saveInfra);
+    return saveInfra;
   }
 
   public void deleteInfra(String infraId) {
     InfraObject infraObject = findById(infraId);
     infraObjectRepository.delete(infraObject);
+    infraSpatialIndex.removeAfterCommit(infraId);
   }
 }
@@ -0,0 +1,201 @@
+package com.example.infrastructure_service.service;
+
+import ch.hsr.geohash.GeoHash;
+import com.example.infrastructure_service.dto.InfraLocation;
+import com.example.infrastructure_service.model.InfraObject;
+import com.example.infrastructure_service.repository.InfraObjectRepository;
+import com.example.infrastructure_service.utils.Utils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// in-memory geohash grid of infra objects per camera and category, used for the nearest infra match on ingest
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InfraSpatialIndex {
+
+  // precision 8 cell is about 38m x 19m, a 5m radius search only needs the cell and its 8 neighbours
+  private static final int CELL_PRECISION = 8;
+
+  private final InfraObjectRepository infraObjectRepository;
+
+  @Value("${infra.spatial-index.enabled:true}")
+  private boolean enabled;
+
+  private volatile boolean ready = false;
+
+  // cameraId|category|geohash -> objects in that cell
+  private volatile Map<String, Set<InfraLocation>> cells = new ConcurrentHashMap<>();
+  private volatile Map<String, InfraLocation> byId = new ConcurrentHashMap<>();
+
+  // put / remove while a rebuild is loading, guarded by this
+  private List<PendingChange> pendingChanges;
+  private final Object rebuildLock = new Object();
+
+  // location null removes the object
+  private record PendingChange(String id, InfraLocation location) {
+  }
+
+  public boolean isReady() {
+    return enabled && ready;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    if (enabled) {
+      rebuild();
+    }
+  }
+
+  // resync with the table so writes from other instances are picked up
+  @Scheduled(fixedDelayString = "${infra.spatial-index.refresh-ms:600000}", initialDelayString = "${infra.spatial-index.refresh-ms:600000}")
+  public void refresh() {
+    if (enabled) {
+      rebuild();
+    }
+  }
+
+  public void rebuild() {
+    synchronized (rebuildLock) {
+      synchronized (this) {
+        pendingChanges = new ArrayList<>();
+      }
+      long start = System.currentTimeMillis();
+      List<InfraLocation> locations;
+      try {
+        locations = infraObjectRepository.findAllLocations();
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          pendingChanges = null;
+        }
+        throw e;
+      }
+
+      Map<String, Set<InfraLocation>> newCells = new ConcurrentHashMap<>();
+      Map<String, InfraLocation> newById = new ConcurrentHashMap<>();
+      for (InfraLocation location : locations) {
+        if (location.latitude() == null || location.longitude() == null) continue;
+        newById.put(location.id(), location);
+        newCells.computeIfAbsent(cellKey(location), k -> ConcurrentHashMap.newKeySet()).add(location);
+      }
+
+      synchronized (this) {
+        cells = newCells;
+        byId = newById;
+        // changes made while the snapshot was loading may be missing from it, apply them again
+        for (PendingChange change : pendingChanges) {
+          apply(change);
+        }
+        pendingChanges = null;
+        ready = true;
+      }
+      log.info("Spatial index loaded {} infra objects in {} ms", newById.size(), System.currentTimeMillis() - start);
+    }
+  }
+
+  // only call with committed rows, inside a transaction use putAfterCommit
+  public synchronized void put(InfraObject infraObject) {
+    if (!enabled || infraObject.getId() == null) return;
+    InfraLocation location = infraObject.getLatitude() == null || infraObject.getLongitude() == null ? null
+        : new InfraLocation(infraObject.getId(), infraObject.getCameraId(), infraObject.getCategory(),
+            infraObject.getName(), infraObject.getLatitude(), infraObject.getLongitude());
+    record(new PendingChange(infraObject.getId(), location));
+  }
+
+  public synchronized void remove(String infraId) {
+    if (!enabled) return;
+    record(new PendingChange(infraId, null));
+  }
+
+  // a rolled back transaction must not leave ids in the index that do not exist in the table
+  public void putAfterCommit(InfraObject infraObject) {
+    afterCommit(() -> put(infraObject));
+  }
+
+  public void removeAfterCommit(String infraId) {
+    afterCommit(() -> remove(infraId));
+  }
+
+  private void record(PendingChange change) {
+    apply(change);
+    if (pendingChanges != null) {
+      pendingChanges.add(change);
+    }
+  }
+
+  private void apply(PendingChange change) {
+    InfraLocation old = byId.remove(change.id());
+    if (old != null) {
+      Set<InfraLocation> cell = cells.get(cellKey(old));
+      if (cell != null) cell.remove(old);
+    }
+    if (change.location() != null) {
+      byId.put(change.id(), change.location());
+      cells.computeIfAbsent(cellKey(change.location()), k -> ConcurrentHashMap.newKeySet()).add(change.location());
+    }
+  }
+
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  // same semantic as InfraObjectRepository.findNearestInfraWithinRadius, returns the id of the nearest object or null
+  public String findNearestId(String cameraId, String category, String name, double latitude, double longitude,
+      double radius) {
+    GeoHash center = GeoHash.withCharacterPrecision(latitude, longitude, CELL_PRECISION);
+
+    InfraLocation nearest = null;
+    double minDistance = Double.MAX_VALUE;
+    for (GeoHash hash : neighbours(center)) {
+      Set<InfraLocation> cell = cells.get(key(cameraId, category, hash.toBase32()));
+      if (cell == null) continue;
+      for (InfraLocation location : cell) {
+        if (name != null && !name.isEmpty() && !name.equals(location.name())) continue;
+        double distance = Utils.calculateDistanceInMeters(latitude, longitude, location.latitude(), location.longitude());
+        if (distance <= radius && distance < minDistance) {
+          minDistance = distance;
+          nearest = location;
+        }
+      }
+    }
+    return nearest == null ? null : nearest.id();
+  }
+
+  private GeoHash[] neighbours(GeoHash center) {
+    GeoHash[] adjacent = center.getAdjacent();
+    GeoHash[] all = new GeoHash[adjacent.length + 1];
+    all[0] = center;
+    System.arraycopy(adjacent, 0, all, 1, adjacent.length);
+    return all;
+  }
+
+  private String cellKey(InfraLocation location) {
+    return key(location.cameraId(), location.category(),
+        Utils.generateGeoHash(location.latitude(), location.longitude(), CELL_PRECISION));
+  }
+
+  private String key(String cameraId, String category, String geohash) {
+    return cameraId + "|" + category + "|" + geohash;
+  }
+}
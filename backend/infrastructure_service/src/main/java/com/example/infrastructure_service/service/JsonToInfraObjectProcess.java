@@ -1,6 +1,5 @@
 package com.example.infrastructure_service.service;
 
-import com.example.infrastructure_service.client.MapClient;
 import com.example.infrastructure_service.dto.InfraLogRecord;
 import com.example.infrastructure_service.enums.EventStatus;
 import com.example.infrastructure_service.enums.InfraType;
@@ -20,85 +19,141 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @RequiredArgsConstructor
 @Service
 public class JsonToInfraObjectProcess {
   DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-  private final MapClient mapClient;
+  private final GeocodingService geocodingService;
   private final InfraObjectProcessRepository infraObjectProcessRepository;
   private final InfraProcessingService infraProcessingService;
   private final InfraImageService infraImageService;
 
   // parser from json from kafka to List infraObject
+  @Transactional
   public List<InfraObjectProcess> processParseObject(JsonObject jsonObject) {
+    return processParseObjects(List.of(jsonObject));
+  }
+
+  // parse every message of a kafka poll, all rows are written in one jdbc batch
+  @Transactional
+  public List<InfraObjectProcess> processParseObjects(List<JsonObject> jsonObjects) {
     List<InfraObjectProcess> infraObjects = new ArrayList<>();
-    InfraObjectProcess saveModel;
+    // many annotations share the same frame, only look up / insert each image once per batch
+    Map<String, InfraImage> imageCache = new HashMap<>();
+
+    for (JsonObject jsonObject : jsonObjects) {
+      Map<Integer, Category> categories = jsonObject.getCategories().stream()
+          .collect(Collectors.toMap(Category::getId, Function.identity(), (a, b) -> a));
+      Map<Integer, Image> images = jsonObject.getImages().stream()
+          .collect(Collectors.toMap(Image::getId, Function.identity(), (a, b) -> a));
+
+      // Lặp qua từng annotation
+      for (Annotation annotation : jsonObject.getAnnotations()) {
+        infraObjects.add(parseAnnotation(jsonObject, annotation, categories, images, imageCache));
+      }
+    }
+
+    return infraObjectProcessRepository.saveAll(infraObjects);
+  }
+
+  // checks a message before anything of it is written, a broken message is skipped by the consumer
+  // instead of failing the transaction of the whole poll
+  public void validate(JsonObject jsonObject) {
+    if (jsonObject.getInfo() == null || jsonObject.getAnnotations() == null
+        || jsonObject.getCategories() == null || jsonObject.getImages() == null) {
+      throw new RuntimeException("Missing info, annotations, categories or images");
+    }
+    Map<Integer, Category> categories = jsonObject.getCategories().stream()
+        .collect(Collectors.toMap(Category::getId, Function.identity(), (a, b) -> a));
+    Map<Integer, Image> images = jsonObject.getImages().stream()
+        .collect(Collectors.toMap(Image::getId, Function.identity(), (a, b) -> a));
 
-    // Lặp qua từng annotation
     for (Annotation annotation : jsonObject.getAnnotations()) {
-      InfraObjectProcess model = new InfraObjectProcess();
-
-      // Lấy category tương ứng với annotation
-      Category category = jsonObject.getCategories()
-          .stream()
-          .filter(cat -> cat.getId() == annotation.getCategoryId())
-          .findFirst()
-          .orElseThrow(() -> new RuntimeException(
-              "No matching category found for annotation ID " + annotation.getId()));
-
-      // Lấy image tương ứng với annotation
-      Image image = jsonObject.getImages()
-          .stream()
-          .filter(img -> img.getId() == annotation.getImageId())
-          .findFirst()
-          .orElseThrow(() -> new RuntimeException(
-              "No matching image found for annotation ID " + annotation.getImageId()));
-
-      // Set thông tin cơ bản
-      model.setCameraId(jsonObject.getInfo().getCameraId());
-      model.setScheduleId(jsonObject.getInfo().getScheduleId());
-      model.setCategory(category.getSupercategory());
-      model.setName(category.getName());
-      model.setDateCaptured(LocalDateTime.parse(image.getDateCaptured(), formatter));
-      model.setLongitude(annotation.getLocation().getLongitude());
-      model.setLatitude(annotation.getLocation().getLatitude());
-      model.setStatus(annotation.getStatus());
-      model.setConfidence(annotation.getConf());
-      model.setLevel(RiskLevelLoader.getRiskLevels(category.getName()));
-      model.setProcessStatus(ProcessStatus.PENDING);
-      model.setBbox(Arrays.toString(annotation.getBbox()));
-      model.setRealWidth(annotation.getRealWidth());
-      model.setRealHeight(annotation.getRealHeight());
-      model.setLocation(mapClient.getAddress(annotation.getLocation().getLatitude(), annotation.getLocation().getLongitude()));
-      if(model.getCategory().equals("SIGN") || model.getCategory().equals("LAMP")){
-        model.setType(InfraType.ASSET);
-      } else {
-        model.setType(InfraType.ABNORMALITY);
+      Category category = categories.get(annotation.getCategoryId());
+      if (category == null || category.getSupercategory() == null) {
+        throw new RuntimeException("No matching category found for annotation ID " + annotation.getId());
+      }
+      Image image = images.get(annotation.getImageId());
+      if (image == null) {
+        throw new RuntimeException("No matching image found for annotation ID " + annotation.getImageId());
+      }
+      if (annotation.getLocation() == null) {
+        throw new RuntimeException("No location for annotation ID " + annotation.getId());
+      }
+      try {
+        LocalDateTime.parse(image.getDateCaptured(), formatter);
+      } catch (RuntimeException e) {
+        throw new RuntimeException("Invalid date captured " + image.getDateCaptured() + " for image ID " + image.getId());
       }
+    }
+  }
+
+  private InfraObjectProcess parseAnnotation(JsonObject jsonObject, Annotation annotation,
+      Map<Integer, Category> categories, Map<Integer, Image> images, Map<String, InfraImage> imageCache) {
+    InfraObjectProcess model = new InfraObjectProcess();
+
+    // Lấy category tương ứng với annotation
+    Category category = categories.get(annotation.getCategoryId());
+    if (category == null) {
+      throw new RuntimeException("No matching category found for annotation ID " + annotation.getId());
+    }
+
+    // Lấy image tương ứng với annotation
+    Image image = images.get(annotation.getImageId());
+    if (image == null) {
+      throw new RuntimeException("No matching image found for annotation ID " + annotation.getImageId());
+    }
 
+    // Set thông tin cơ bản
+    model.setCameraId(jsonObject.getInfo().getCameraId());
+    model.setScheduleId(jsonObject.getInfo().getScheduleId());
+    model.setCategory(category.getSupercategory());
+    model.setName(category.getName());
+    model.setDateCaptured(LocalDateTime.parse(image.getDateCaptured(), formatter));
+    model.setLongitude(annotation.getLocation().getLongitude());
+    model.setLatitude(annotation.getLocation().getLatitude());
+    model.setStatus(annotation.getStatus());
+    model.setConfidence(annotation.getConf());
+    model.setLevel(RiskLevelLoader.getRiskLevels(category.getName()));
+    model.setProcessStatus(ProcessStatus.PENDING);
+    model.setBbox(Arrays.toString(annotation.getBbox()));
+    model.setRealWidth(annotation.getRealWidth());
+    model.setRealHeight(annotation.getRealHeight());
+    // do not wait for the geocoder on the consumer thread, AddressEnrichmentService fills the address later
+    String address = geocodingService.getCachedAddress(annotation.getLocation().getLatitude(), annotation.getLocation().getLongitude());
+    model.setLocation(address);
+    model.setLocationPending(address == null);
+    if(model.getCategory().equals("SIGN") || model.getCategory().equals("LAMP")){
+      model.setType(InfraType.ASSET);
+    } else {
+      model.setType(InfraType.ABNORMALITY);
+    }
+
+    model.setImage(imageCache.computeIfAbsent(image.getPathUrl(), path -> {
       InfraImage infraImage = new InfraImage();
-      infraImage.setPathUrl(image.getPathUrl());
+      infraImage.setPathUrl(path);
       infraImage.setFrame(image.getFrame());
-      // Thêm object vào list
-      model.setImage(infraImageService.processImage(infraImage));
-
-      InfraObject existedInfra = infraProcessingService.findByLocation(model.getCameraId(), model.getCategory(), model.getName(),
-          model.getLatitude(), model.getLongitude());
-
-      if(existedInfra == null) {
-        model.setEventStatus(EventStatus.NEW);
-        saveModel = infraObjectProcessRepository.save(model);
-      }else {
-        model.setEventStatus(EventStatus.UPDATED);
-        model.setInfraObject(existedInfra);
-        saveModel = infraObjectProcessRepository.save(model);}
-      infraObjects.add(saveModel);
-    }
+      return infraImageService.processImage(infraImage);
+    }));
 
-    return infraObjectProcessRepository.saveAll(infraObjects);
+    InfraObject existedInfra = infraProcessingService.findReferenceByLocation(model.getCameraId(), model.getCategory(), model.getName(),
+        model.getLatitude(), model.getLongitude());
+
+    if(existedInfra == null) {
+      model.setEventStatus(EventStatus.NEW);
+    }else {
+      model.setEventStatus(EventStatus.UPDATED);
+      model.setInfraObject(existedInfra);
+    }
+    return model;
   }
-}
\ No newline at end of file
+}
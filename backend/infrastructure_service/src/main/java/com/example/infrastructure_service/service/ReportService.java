@@ -11,13 +11,25 @@ import com.example.infrastructure_service.model.InfraObject;
 import com.example.infrastructure_service.repository.EventRepository;
 import com.example.infrastructure_service.repository.HistoryRepository;
 import com.example.infrastructure_service.repository.InfraObjectRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cglib.core.Local;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +38,13 @@ public class ReportService {
   private final HistoryRepository historyRepository;
   private final CameraUserService cameraUserService;
   private final EventRepository eventRepository;
+  private final EntityManager entityManager;
+  private final ObjectMapper objectMapper;
+  private final PlatformTransactionManager transactionManager;
+
+  // objects per page of the streamed report, events and histories are loaded per page
+  @Value("${infra.report.page-size:500}")
+  private int reportPageSize;
 
   public ReportResponse getInfraReportData(String infraId) {
     ReportResponse reportResponse = new ReportResponse();
@@ -38,21 +57,31 @@ public class ReportService {
     return reportResponse;
   }
 
+  // 3 queries per report whatever the number of objects, events and histories are grouped by object id
+  @Transactional(readOnly = true)
   public ReportResponse getCameraReportData(String userId, String cameraId, LocalDate startTime, LocalDate endTime) {
       ReportResponse reportResponse = new ReportResponse();
       cameraUserService.checkCameraUser(cameraId, userId);
       reportResponse.setCameraId(cameraId);
 
+      LocalDateTime start = startTime.atStartOfDay();
+      LocalDateTime end = endTime.plusDays(1).atStartOfDay();
+
+      // objects are loaded first so the infraObject of each event/history is resolved from the persistence context
       List<InfraObject> infraObjects = infraObjectRepository.findInfraObjectByCameraId(cameraId);
-      List<History> histories = historyRepository.findByCameraAndDate(cameraId, startTime, endTime);
+      Map<String, List<History>> historiesByObject = historyRepository.findByCameraAndDate(cameraId, start, end)
+          .stream()
+          .collect(Collectors.groupingBy(h -> h.getInfraObject().getId(), HashMap::new, Collectors.toList()));
+      Map<String, List<EventDTO>> eventsByObject = eventRepository.findByCameraAndDate(cameraId, start, end)
+          .stream()
+          .collect(Collectors.groupingBy(e -> e.getInfraObject().getId(), HashMap::new,
+              Collectors.mapping(EventDTO::new, Collectors.toList())));
 
       List<ObjectHistory> objectHistories = infraObjects.stream()
           .map(obj -> new ObjectHistory(
               obj,
-              histories.stream().filter(h -> h.getInfraObject().getId().equals(obj.getId())).toList(),
-              eventRepository.findByInfraObject_Id(obj.getId()).stream()
-                  .map(EventDTO::new)
-                  .toList()
+              historiesByObject.getOrDefault(obj.getId(), List.of()),
+              eventsByObject.getOrDefault(obj.getId(), List.of())
           ))
           .toList();
 
@@ -61,4 +90,69 @@ public class ReportService {
       return reportResponse;
   }
 
+  // report-service reuses a generated camera report while this value stays the same
+  public String getCameraReportVersion(String userId, String cameraId, LocalDate startTime, LocalDate endTime) {
+    cameraUserService.checkCameraUser(cameraId, userId);
+    return eventRepository.getReportVersion(cameraId, startTime.toString(), endTime.toString());
+  }
+
+  // one ObjectHistory per line (NDJSON), written page by page so only one page of entities is in memory
+  public StreamingResponseBody streamCameraReportData(String userId, String cameraId, LocalDate startTime,
+      LocalDate endTime) {
+    // checked before the response starts so a denied user still gets an error status
+    cameraUserService.checkCameraUser(cameraId, userId);
+    LocalDateTime start = startTime.atStartOfDay();
+    LocalDateTime end = endTime.plusDays(1).atStartOfDay();
+
+    return outputStream -> {
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setReadOnly(true);
+      transaction.executeWithoutResult(status -> {
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+          long count = writeCameraReportPages(writer, cameraId, start, end);
+          // last line, a stream without it was cut off and must not be used as a complete report
+          writer.write(Map.of("end", true, "count", count));
+          writer.flush();
+          outputStream.write('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    };
+  }
+
+  // returns the number of objects written
+  private long writeCameraReportPages(SequenceWriter writer, String cameraId, LocalDateTime start,
+      LocalDateTime end) throws IOException {
+    String afterId = "";
+    long count = 0;
+    while (true) {
+      List<InfraObject> infraObjects = infraObjectRepository.findReportPage(cameraId, afterId,
+          PageRequest.of(0, reportPageSize));
+      if (infraObjects.isEmpty()) {
+        return count;
+      }
+      List<String> ids = infraObjects.stream().map(InfraObject::getId).toList();
+      Map<String, List<History>> historiesByObject = historyRepository.findByInfraObjectsAndDate(ids, start, end)
+          .stream()
+          .collect(Collectors.groupingBy(h -> h.getInfraObject().getId(), HashMap::new, Collectors.toList()));
+      Map<String, List<EventDTO>> eventsByObject = eventRepository.findByInfraObjectsAndDate(ids, start, end)
+          .stream()
+          .collect(Collectors.groupingBy(e -> e.getInfraObject().getId(), HashMap::new,
+              Collectors.mapping(EventDTO::new, Collectors.toList())));
+
+      for (InfraObject obj : infraObjects) {
+        writer.write(new ObjectHistory(obj,
+            historiesByObject.getOrDefault(obj.getId(), List.of()),
+            eventsByObject.getOrDefault(obj.getId(), List.of())));
+      }
+      count += infraObjects.size();
+      writer.flush();
+
+      afterId = ids.get(ids.size() - 1);
+      // the page is written, drop its entities from the persistence context
+      entityManager.clear();
+    }
+  }
+
 }
@@ -3,13 +3,11 @@ package com.example.infrastructure_service.service;
 import com.example.infrastructure_service.dto.response.CategoryStatusCount;
 import com.example.infrastructure_service.dto.response.EventDateCount;
 import com.example.infrastructure_service.dto.response.StatisticsResponse;
+import com.example.infrastructure_service.enums.StatisticsGranularity;
 import com.example.infrastructure_service.repository.EventRepository;
 import com.example.infrastructure_service.repository.InfraObjectRepository;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -19,10 +17,18 @@ public class StatisticsService {
   private final EventRepository eventRepository;
   private final InfraObjectRepository infraObjectRepository;
 
-  public StatisticsResponse getStatistics(LocalDate startDate, LocalDate endDate, String cameraId) {
+  public StatisticsResponse getStatistics(LocalDate startDate, LocalDate endDate, String cameraId,
+      StatisticsGranularity granularity) {
 
-    // Lấy thống kê sự kiện
-    List<EventDateCount> eventStatistics = eventRepository.getEventStatistics(startDate, endDate, cameraId);
+    // Lấy thống kê sự kiện, doc tu bang tong hop theo ngay thay vi quet toan bo event
+    List<EventDateCount> eventStatistics = eventRepository.getEventStatistics(
+            startDate == null ? null : startDate.toString(),
+            endDate == null ? null : endDate.toString(),
+            cameraId,
+            granularity.name().toLowerCase())
+        .stream()
+        .map(row -> new EventDateCount(row.getBucket(), row.getEventCount()))
+        .toList();
 
     List<CategoryStatusCount> objectStatistics = infraObjectRepository.getInfraObjectStatisticsByCamera(cameraId);
 
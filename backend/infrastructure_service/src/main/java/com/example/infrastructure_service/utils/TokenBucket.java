@@ -0,0 +1,46 @@
+package com.example.infrastructure_service.utils;
+
+import java.util.concurrent.TimeUnit;
+
+// simple token bucket, refilled continuously at permitsPerSecond up to capacity
+public class TokenBucket {
+
+  private final long capacity;
+  private final double refillPerNano;
+  private double tokens;
+  private long lastRefill;
+
+  public TokenBucket(long capacity, double permitsPerSecond) {
+    this.capacity = capacity;
+    this.refillPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+  }
+
+  // wait up to timeout for a token, return false if none became available
+  public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (true) {
+      long waitNanos;
+      synchronized (this) {
+        refill();
+        if (tokens >= 1) {
+          tokens -= 1;
+          return true;
+        }
+        waitNanos = (long) Math.ceil((1 - tokens) / refillPerNano);
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, remaining));
+    }
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+    lastRefill = now;
+  }
+}
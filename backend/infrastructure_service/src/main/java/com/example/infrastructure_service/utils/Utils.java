@@ -30,6 +30,22 @@ public class Utils {
     return GeoHash.withCharacterPrecision(latitude, longitude, precision).toBase32();
   }
 
+  // keyword is a comma separated list of phrases that must all match, the longest one is the most selective
+  // and is the one used against the trigram index
+  public static String longestKeywordPhrase(String keyword) {
+    if (keyword == null || keyword.isBlank()) {
+      return null;
+    }
+    String longest = "";
+    for (String phrase : keyword.split("\\s*,\\s*")) {
+      String stripped = phrase.replace(" ", "");
+      if (stripped.length() > longest.length()) {
+        longest = stripped;
+      }
+    }
+    return longest.isEmpty() ? null : longest;
+  }
+
   public static boolean isAllowedImageType(String contentType) {
     for (String type : ALLOWED_IMAGE_TYPES) {
       if (type.equals(contentType)) {
@@ -0,0 +1,22 @@
+-- searchAndFilter never matched the keyword on the capture date, only the keyword search does.
+-- filter_search_text holds the fields searchAndFilter used, in the same order, without the date
+ALTER TABLE infra_objects ADD COLUMN IF NOT EXISTS filter_search_text TEXT;
+
+CREATE OR REPLACE FUNCTION infra_objects_search_text() RETURNS trigger AS $$
+DECLARE
+    info_additional VARCHAR;
+    info_key VARCHAR;
+BEGIN
+    SELECT additional_data, key_id INTO info_additional, info_key FROM infra_info WHERE id = NEW.info_id;
+    NEW.search_text := unaccent(replace(CONCAT_WS('', NEW.location, NEW.name, NEW.category, info_additional,
+        info_key, NEW.status, TO_CHAR(NEW.date_captured, 'DD/MM/YYYY')), ' ', ''));
+    NEW.filter_search_text := unaccent(replace(CONCAT_WS('', NEW.location, NEW.name, info_additional, info_key,
+        NEW.category, NEW.status), ' ', ''));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- backfill, the trigger computes the value
+UPDATE infra_objects SET info_id = info_id;
+
+CREATE INDEX IF NOT EXISTS infra_objects_filter_search_text_trgm_idx ON infra_objects USING GIN (filter_search_text gin_trgm_ops);
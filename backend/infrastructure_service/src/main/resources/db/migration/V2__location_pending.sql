@@ -0,0 +1,12 @@
+-- rows waiting for the background reverse geocoding
+ALTER TABLE IF EXISTS infra_objects ADD COLUMN IF NOT EXISTS location_pending BOOLEAN;
+ALTER TABLE IF EXISTS infra_object_process ADD COLUMN IF NOT EXISTS location_pending BOOLEAN;
+
+CREATE INDEX IF NOT EXISTS infra_objects_location_pending_idx ON infra_objects (id) WHERE location_pending;
+
+DO $$
+BEGIN
+    IF to_regclass('infra_object_process') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS infra_object_process_location_pending_idx ON infra_object_process (id) WHERE location_pending;
+    END IF;
+END $$;
@@ -0,0 +1,94 @@
+-- precomputed search column (unaccented, whitespace stripped) for keyword search,
+-- unaccent() is not immutable so it is maintained by triggers instead of a generated column
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS infra_info
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    key_id          VARCHAR(255),
+    original_image  VARCHAR(255),
+    avatar          VARCHAR(255),
+    manage_unit     VARCHAR(255),
+    additional_data VARCHAR(255),
+    create_at       TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT infra_info_pkey PRIMARY KEY (id)
+);
+
+ALTER TABLE infra_objects ADD COLUMN IF NOT EXISTS info_id BIGINT;
+ALTER TABLE infra_objects ADD COLUMN IF NOT EXISTS search_text TEXT;
+ALTER TABLE event ADD COLUMN IF NOT EXISTS search_text TEXT;
+
+CREATE INDEX IF NOT EXISTS event_infra_object_id_idx ON event (infra_object_id);
+
+-- infra_objects: location, name, category, additional data, key id, status, date
+CREATE OR REPLACE FUNCTION infra_objects_search_text() RETURNS trigger AS $$
+DECLARE
+    info_additional VARCHAR;
+    info_key VARCHAR;
+BEGIN
+    SELECT additional_data, key_id INTO info_additional, info_key FROM infra_info WHERE id = NEW.info_id;
+    NEW.search_text := unaccent(replace(CONCAT_WS('', NEW.location, NEW.name, NEW.category, info_additional,
+        info_key, NEW.status, TO_CHAR(NEW.date_captured, 'DD/MM/YYYY')), ' ', ''));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS infra_objects_search_text_trg ON infra_objects;
+CREATE TRIGGER infra_objects_search_text_trg
+    BEFORE INSERT OR UPDATE ON infra_objects
+    FOR EACH ROW EXECUTE FUNCTION infra_objects_search_text();
+
+-- event: location, name, category of the object, event status
+CREATE OR REPLACE FUNCTION event_search_text() RETURNS trigger AS $$
+BEGIN
+    SELECT unaccent(replace(CONCAT_WS('', i.location, i.name, i.category, NEW.status, NEW.event_status), ' ', ''))
+    INTO NEW.search_text
+    FROM infra_objects i WHERE i.id = NEW.infra_object_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS event_search_text_trg ON event;
+CREATE TRIGGER event_search_text_trg
+    BEFORE INSERT OR UPDATE ON event
+    FOR EACH ROW EXECUTE FUNCTION event_search_text();
+
+-- propagate changes of the parent rows
+CREATE OR REPLACE FUNCTION infra_objects_propagate_search_text() RETURNS trigger AS $$
+BEGIN
+    UPDATE event SET infra_object_id = infra_object_id WHERE infra_object_id = NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS infra_objects_propagate_search_text_trg ON infra_objects;
+CREATE TRIGGER infra_objects_propagate_search_text_trg
+    AFTER UPDATE OF location, name, category ON infra_objects
+    FOR EACH ROW
+    WHEN (OLD.location IS DISTINCT FROM NEW.location
+        OR OLD.name IS DISTINCT FROM NEW.name
+        OR OLD.category IS DISTINCT FROM NEW.category)
+    EXECUTE FUNCTION infra_objects_propagate_search_text();
+
+CREATE OR REPLACE FUNCTION infra_info_propagate_search_text() RETURNS trigger AS $$
+BEGIN
+    UPDATE infra_objects SET info_id = info_id WHERE info_id = NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS infra_info_propagate_search_text_trg ON infra_info;
+CREATE TRIGGER infra_info_propagate_search_text_trg
+    AFTER UPDATE OF additional_data, key_id ON infra_info
+    FOR EACH ROW
+    WHEN (OLD.additional_data IS DISTINCT FROM NEW.additional_data
+        OR OLD.key_id IS DISTINCT FROM NEW.key_id)
+    EXECUTE FUNCTION infra_info_propagate_search_text();
+
+-- backfill, the triggers compute the value
+UPDATE infra_objects SET info_id = info_id;
+UPDATE event SET infra_object_id = infra_object_id;
+
+CREATE INDEX IF NOT EXISTS infra_objects_search_text_trgm_idx ON infra_objects USING GIN (search_text gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS event_search_text_trgm_idx ON event USING GIN (search_text gin_trgm_ops);
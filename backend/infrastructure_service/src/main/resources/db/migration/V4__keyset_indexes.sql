@@ -0,0 +1,4 @@
+-- keyset pagination on (date_captured DESC, id DESC)
+CREATE INDEX IF NOT EXISTS event_date_captured_id_idx ON event (date_captured DESC, id DESC);
+CREATE INDEX IF NOT EXISTS infra_objects_date_captured_id_idx ON infra_objects (date_captured DESC, id DESC);
+CREATE INDEX IF NOT EXISTS infra_objects_camera_date_captured_id_idx ON infra_objects (camera_id, date_captured DESC, id DESC);
@@ -0,0 +1,7 @@
+-- half-open range filters on date_captured / end_time
+-- event and history have no camera_id, the camera filter goes through infra_objects so they are keyed by infra_object_id
+-- infra_objects (camera_id, date_captured) is covered by infra_objects_camera_date_captured_id_idx from V4
+CREATE INDEX IF NOT EXISTS event_infra_object_date_captured_idx ON event (infra_object_id, date_captured);
+CREATE INDEX IF NOT EXISTS event_end_time_idx ON event (end_time);
+CREATE INDEX IF NOT EXISTS history_infra_object_date_captured_idx ON history (infra_object_id, date_captured);
+CREATE INDEX IF NOT EXISTS history_date_captured_idx ON history (date_captured);
@@ -0,0 +1,87 @@
+-- daily event counts per camera, category, status and event status for the statistics endpoint
+-- kept up to date by statement level triggers so jdbc batches, repository saves and deletes are all counted
+CREATE TABLE IF NOT EXISTS event_daily_rollup (
+    camera_id    varchar(255) NOT NULL DEFAULT '',
+    day          date         NOT NULL,
+    category     varchar(255) NOT NULL DEFAULT '',
+    status       varchar(255) NOT NULL DEFAULT '',
+    event_status varchar(255) NOT NULL DEFAULT '',
+    event_count  bigint       NOT NULL DEFAULT 0,
+    PRIMARY KEY (camera_id, day, category, status, event_status)
+);
+
+CREATE OR REPLACE FUNCTION event_daily_rollup_apply() RETURNS trigger AS $$
+BEGIN
+    -- rows are upserted in key order so concurrent statements lock them in the same order
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO event_daily_rollup AS r (camera_id, day, category, status, event_status, event_count)
+        SELECT COALESCE(i.camera_id, ''), CAST(n.date_captured AS date), COALESCE(i.category, ''),
+               COALESCE(n.status, ''), COALESCE(n.event_status, ''), COUNT(*)
+        FROM new_rows n LEFT JOIN infra_objects i ON i.id = n.infra_object_id
+        WHERE n.date_captured IS NOT NULL
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (camera_id, day, category, status, event_status)
+            DO UPDATE SET event_count = r.event_count + EXCLUDED.event_count;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO event_daily_rollup AS r (camera_id, day, category, status, event_status, event_count)
+        SELECT COALESCE(i.camera_id, ''), CAST(o.date_captured AS date), COALESCE(i.category, ''),
+               COALESCE(o.status, ''), COALESCE(o.event_status, ''), -COUNT(*)
+        FROM old_rows o LEFT JOIN infra_objects i ON i.id = o.infra_object_id
+        WHERE o.date_captured IS NOT NULL
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (camera_id, day, category, status, event_status)
+            DO UPDATE SET event_count = r.event_count + EXCLUDED.event_count;
+    ELSE
+        -- most updates (end_time, description) cancel out and write nothing
+        INSERT INTO event_daily_rollup AS r (camera_id, day, category, status, event_status, event_count)
+        SELECT camera_id, day, category, status, event_status, SUM(delta)
+        FROM (
+            SELECT COALESCE(i.camera_id, '') AS camera_id, CAST(n.date_captured AS date) AS day,
+                   COALESCE(i.category, '') AS category, COALESCE(n.status, '') AS status,
+                   COALESCE(n.event_status, '') AS event_status, 1 AS delta
+            FROM new_rows n LEFT JOIN infra_objects i ON i.id = n.infra_object_id
+            WHERE n.date_captured IS NOT NULL
+            UNION ALL
+            SELECT COALESCE(i.camera_id, ''), CAST(o.date_captured AS date), COALESCE(i.category, ''),
+                   COALESCE(o.status, ''), COALESCE(o.event_status, ''), -1
+            FROM old_rows o LEFT JOIN infra_objects i ON i.id = o.infra_object_id
+            WHERE o.date_captured IS NOT NULL
+        ) changes
+        GROUP BY 1, 2, 3, 4, 5
+        HAVING SUM(delta) <> 0
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (camera_id, day, category, status, event_status)
+            DO UPDATE SET event_count = r.event_count + EXCLUDED.event_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS event_daily_rollup_insert ON event;
+CREATE TRIGGER event_daily_rollup_insert AFTER INSERT ON event
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION event_daily_rollup_apply();
+
+DROP TRIGGER IF EXISTS event_daily_rollup_update ON event;
+CREATE TRIGGER event_daily_rollup_update AFTER UPDATE ON event
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION event_daily_rollup_apply();
+
+DROP TRIGGER IF EXISTS event_daily_rollup_delete ON event;
+CREATE TRIGGER event_daily_rollup_delete AFTER DELETE ON event
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION event_daily_rollup_apply();
+
+-- backfill from the existing history
+TRUNCATE event_daily_rollup;
+INSERT INTO event_daily_rollup (camera_id, day, category, status, event_status, event_count)
+SELECT COALESCE(i.camera_id, ''), CAST(e.date_captured AS date), COALESCE(i.category, ''),
+       COALESCE(e.status, ''), COALESCE(e.event_status, ''), COUNT(*)
+FROM event e LEFT JOIN infra_objects i ON i.id = e.infra_object_id
+WHERE e.date_captured IS NOT NULL
+GROUP BY 1, 2, 3, 4, 5;
+
+-- object statistics per camera are answered from the index alone
+CREATE INDEX IF NOT EXISTS infra_objects_camera_category_status_idx ON infra_objects (camera_id, category, status);
@@ -0,0 +1,5 @@
+-- rows whose reverse geocoding failed are retried with a backoff instead of losing their address
+ALTER TABLE IF EXISTS infra_objects ADD COLUMN IF NOT EXISTS location_attempts INTEGER;
+ALTER TABLE IF EXISTS infra_objects ADD COLUMN IF NOT EXISTS location_retry_at TIMESTAMP;
+ALTER TABLE IF EXISTS infra_object_process ADD COLUMN IF NOT EXISTS location_attempts INTEGER;
+ALTER TABLE IF EXISTS infra_object_process ADD COLUMN IF NOT EXISTS location_retry_at TIMESTAMP;
@@ -0,0 +1,47 @@
+-- the rollup takes camera_id and category from infra_objects when an event is written,
+-- when an object moves to another camera or category its existing counts are moved with it.
+-- transition tables do not allow a column list, the trigger fires on every update and only joins event for moved rows
+CREATE OR REPLACE FUNCTION event_daily_rollup_move_object() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO event_daily_rollup AS r (camera_id, day, category, status, event_status, event_count)
+    SELECT camera_id, day, category, status, event_status, SUM(delta)
+    FROM (
+        SELECT COALESCE(n.camera_id, '') AS camera_id, CAST(e.date_captured AS date) AS day,
+               COALESCE(n.category, '') AS category, COALESCE(e.status, '') AS status,
+               COALESCE(e.event_status, '') AS event_status, 1 AS delta
+        FROM new_rows n
+        JOIN old_rows o ON o.id = n.id
+        JOIN event e ON e.infra_object_id = n.id
+        WHERE (n.camera_id, n.category) IS DISTINCT FROM (o.camera_id, o.category)
+          AND e.date_captured IS NOT NULL
+        UNION ALL
+        SELECT COALESCE(o.camera_id, ''), CAST(e.date_captured AS date), COALESCE(o.category, ''),
+               COALESCE(e.status, ''), COALESCE(e.event_status, ''), -1
+        FROM new_rows n
+        JOIN old_rows o ON o.id = n.id
+        JOIN event e ON e.infra_object_id = n.id
+        WHERE (n.camera_id, n.category) IS DISTINCT FROM (o.camera_id, o.category)
+          AND e.date_captured IS NOT NULL
+    ) changes
+    GROUP BY 1, 2, 3, 4, 5
+    HAVING SUM(delta) <> 0
+    ORDER BY 1, 2, 3, 4, 5
+    ON CONFLICT (camera_id, day, category, status, event_status)
+        DO UPDATE SET event_count = r.event_count + EXCLUDED.event_count;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS event_daily_rollup_object_update ON infra_objects;
+CREATE TRIGGER event_daily_rollup_object_update AFTER UPDATE ON infra_objects
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION event_daily_rollup_move_object();
+
+-- counts written under an old category or camera before this trigger existed
+TRUNCATE event_daily_rollup;
+INSERT INTO event_daily_rollup (camera_id, day, category, status, event_status, event_count)
+SELECT COALESCE(i.camera_id, ''), CAST(e.date_captured AS date), COALESCE(i.category, ''),
+       COALESCE(e.status, ''), COALESCE(e.event_status, ''), COUNT(*)
+FROM event e LEFT JOIN infra_objects i ON i.id = e.infra_object_id
+WHERE e.date_captured IS NOT NULL
+GROUP BY 1, 2, 3, 4, 5;
@@ -0,0 +1,38 @@
+-- on a fresh database flyway runs before hibernate creates this table, V2 and V7 skipped it and the pending
+-- index was never created. the table is created here so the index always exists, hibernate only adds to it
+CREATE TABLE IF NOT EXISTS infra_object_process
+(
+    id                VARCHAR(255)     NOT NULL,
+    camera_id         VARCHAR(255),
+    date_captured     TIMESTAMP WITHOUT TIME ZONE,
+    longitude         DOUBLE PRECISION,
+    latitude          DOUBLE PRECISION,
+    category          VARCHAR(255),
+    name              VARCHAR(255),
+    status            VARCHAR(255),
+    confidence        DOUBLE PRECISION,
+    level             INTEGER,
+    location          VARCHAR(255),
+    location_pending  BOOLEAN,
+    location_attempts INTEGER,
+    location_retry_at TIMESTAMP WITHOUT TIME ZONE,
+    schedule_id       VARCHAR(255),
+    bbox              VARCHAR(255),
+    real_width        DOUBLE PRECISION,
+    real_height       DOUBLE PRECISION,
+    event_status      VARCHAR(255),
+    type              VARCHAR(255),
+    image_id          BIGINT,
+    process_status    VARCHAR(255),
+    infra_object_id   VARCHAR(36),
+    CONSTRAINT infra_object_process_pkey PRIMARY KEY (id),
+    CONSTRAINT infra_object_process_image_fk FOREIGN KEY (image_id) REFERENCES infra_image (id) ON DELETE NO ACTION,
+    CONSTRAINT infra_object_process_infra_object_fk FOREIGN KEY (infra_object_id) REFERENCES infra_objects (id) ON DELETE NO ACTION
+);
+
+-- databases where hibernate created the table before V2 / V7 ran
+ALTER TABLE infra_object_process ADD COLUMN IF NOT EXISTS location_pending BOOLEAN;
+ALTER TABLE infra_object_process ADD COLUMN IF NOT EXISTS location_attempts INTEGER;
+ALTER TABLE infra_object_process ADD COLUMN IF NOT EXISTS location_retry_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS infra_object_process_location_pending_idx ON infra_object_process (id) WHERE location_pending;
@@ -11,6 +11,7 @@ import java.io.InputStream;
 import javax.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -18,6 +19,7 @@ import org.springframework.core.io.Resource;
 
 @Slf4j
 @Configuration
+@ConditionalOnProperty(name = "notification.fcm.stub", havingValue = "false", matchIfMissing = true)
 public class FirebaseConfig {
 
   @Value("${app.firebase-config}")
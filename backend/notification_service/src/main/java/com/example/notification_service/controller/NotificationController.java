@@ -2,8 +2,9 @@ package com.example.notification_service.controller;
 
 import com.example.notification_service.dto.ApiResponse;
 import com.example.notification_service.dto.request.SaveFcmTokenRequest;
+import com.example.notification_service.dto.response.NotificationItemResponse;
+import com.example.notification_service.dto.response.NotificationPageResponse;
 import com.example.notification_service.model.Notice;
-import com.example.notification_service.model.NotificationDB;
 import com.example.notification_service.service.DeviceService;
 import com.example.notification_service.service.NotificationService;
 import com.google.firebase.messaging.BatchResponse;
@@ -31,34 +32,55 @@ public class NotificationController {
   }
 
   @GetMapping("/{id}")
-  public ApiResponse<NotificationDB> getNotification(@PathVariable("id") Long id) {
-    return ApiResponse.<NotificationDB>builder()
+  public ApiResponse<NotificationItemResponse> getNotification(@RequestHeader("X-Credential-Id") String credentialId,
+      @PathVariable("id") Long id) {
+    return ApiResponse.<NotificationItemResponse>builder()
             .message("Get notification by id")
-            .data(notificationService.getNotification(id))
+            .data(notificationService.getNotification(id, credentialId))
             .build();
   }
 
   @GetMapping("")
-  public ApiResponse<List<NotificationDB>> getNotifications(@RequestHeader("X-Credential-Id") String credentialId, @RequestParam(required = false) Boolean isRead) {
-    return ApiResponse.<List<NotificationDB>>builder()
+  public ApiResponse<List<NotificationItemResponse>> getNotifications(@RequestHeader("X-Credential-Id") String credentialId, @RequestParam(required = false) Boolean isRead) {
+    return ApiResponse.<List<NotificationItemResponse>>builder()
         .message("Get notification by id")
         .data(notificationService.getNotifications(credentialId, isRead))
         .build();
   }
 
+  // keyset pages, newest first, pass nextCursor of a page as cursor for the next one
+  @GetMapping("/page")
+  public ApiResponse<NotificationPageResponse> getNotificationPage(@RequestHeader("X-Credential-Id") String credentialId,
+      @RequestParam(required = false) Boolean isRead, @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
+    return ApiResponse.<NotificationPageResponse>builder()
+        .message("Get notification page")
+        .data(notificationService.getNotificationPage(credentialId, isRead, cursor, size))
+        .build();
+  }
+
+  @GetMapping("/unread-count")
+  public ApiResponse<Long> getUnreadCount(@RequestHeader("X-Credential-Id") String credentialId) {
+    return ApiResponse.<Long>builder()
+        .message("Get unread notification count")
+        .data(notificationService.getUnreadCount(credentialId))
+        .build();
+  }
+
   @PatchMapping("/read/{id}")
-  public ApiResponse<NotificationDB> readNotification(@PathVariable Long id){
-    return ApiResponse.<NotificationDB>builder()
+  public ApiResponse<NotificationItemResponse> readNotification(@RequestHeader("X-Credential-Id") String credentialId,
+      @PathVariable Long id){
+    return ApiResponse.<NotificationItemResponse>builder()
         .message("Read notification successfully")
-        .data(notificationService.readNotification(id))
+        .data(notificationService.readNotification(id, credentialId))
         .build();
   }
 
   @PatchMapping("/read/all")
-  public ApiResponse<Void> readAllNotification(@RequestHeader("X-Credential-Id") String credentialId){
-    notificationService.readAllNotification(credentialId);
-    return ApiResponse.<Void>builder()
+  public ApiResponse<Integer> readAllNotification(@RequestHeader("X-Credential-Id") String credentialId){
+    return ApiResponse.<Integer>builder()
         .message("Read all notification successfully")
+        .data(notificationService.readAllNotification(credentialId))
         .build();
   }
 }
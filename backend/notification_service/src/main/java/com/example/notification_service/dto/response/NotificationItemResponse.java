@@ -0,0 +1,40 @@
+package com.example.notification_service.dto.response;
+
+import com.example.notification_service.model.NotificationDB;
+import com.example.notification_service.model.NotificationReceipt;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// a notification as seen by one user, same fields the app used to get from NotificationDB
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationItemResponse {
+
+  private Long id;
+  private String title;
+  private String body;
+  private String type;
+  private Boolean isRead;
+  private LocalDateTime createdAt;
+  private LocalDateTime readAt;
+  private String additionalData;
+
+  public static NotificationItemResponse from(NotificationReceipt receipt) {
+    NotificationDB notification = receipt.getNotification();
+    return NotificationItemResponse.builder()
+        .id(notification.getId())
+        .title(notification.getTitle())
+        .body(notification.getBody())
+        .type(notification.getType())
+        .isRead(receipt.getIsRead())
+        .createdAt(notification.getCreatedAt())
+        .readAt(receipt.getReadAt())
+        .additionalData(notification.getAdditionalData())
+        .build();
+  }
+}
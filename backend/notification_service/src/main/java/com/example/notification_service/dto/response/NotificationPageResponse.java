@@ -0,0 +1,19 @@
+package com.example.notification_service.dto.response;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// nextCursor is passed back as cursor to get the following page, null on the last page
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageResponse {
+
+  private List<NotificationItemResponse> items;
+  private String nextCursor;
+  private boolean hasMore;
+}
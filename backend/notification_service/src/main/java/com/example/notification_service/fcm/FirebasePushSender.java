@@ -0,0 +1,42 @@
+package com.example.notification_service.fcm;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "notification.fcm.stub", havingValue = "false", matchIfMissing = true)
+public class FirebasePushSender implements PushSender {
+
+  @Override
+  public List<PushResult> sendMulticast(Notification notification, List<String> tokens)
+      throws FirebaseMessagingException {
+    MulticastMessage message = MulticastMessage.builder()
+        .setNotification(notification)
+        .addAllTokens(tokens)
+        .build();
+
+    BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
+
+    List<SendResponse> responses = response.getResponses();
+    List<PushResult> results = new ArrayList<>(responses.size());
+    for (int i = 0; i < responses.size(); i++) {
+      SendResponse sendResponse = responses.get(i);
+      if (sendResponse.isSuccessful()) {
+        results.add(PushResult.success(tokens.get(i)));
+      } else {
+        FirebaseMessagingException e = sendResponse.getException();
+        results.add(PushResult.failure(tokens.get(i),
+            e.getMessagingErrorCode() == null ? null : e.getMessagingErrorCode().name(), e.getMessage()));
+      }
+    }
+    return results;
+  }
+}
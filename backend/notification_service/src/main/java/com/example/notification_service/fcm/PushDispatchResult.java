@@ -0,0 +1,6 @@
+package com.example.notification_service.fcm;
+
+import java.util.List;
+
+public record PushDispatchResult(int successCount, int failureCount, List<PushResult> failures) {
+}
@@ -0,0 +1,13 @@
+package com.example.notification_service.fcm;
+
+// errorCode is the fcm MessagingErrorCode name, e.g. UNREGISTERED, null when the send succeeded
+public record PushResult(String token, boolean success, String errorCode, String errorMessage) {
+
+  public static PushResult success(String token) {
+    return new PushResult(token, true, null, null);
+  }
+
+  public static PushResult failure(String token, String errorCode, String errorMessage) {
+    return new PushResult(token, false, errorCode, errorMessage);
+  }
+}
@@ -0,0 +1,14 @@
+package com.example.notification_service.fcm;
+
+import com.google.firebase.messaging.Notification;
+import java.util.List;
+
+// sends one fcm multicast, FirebasePushSender in production and StubPushSender when notification.fcm.stub=true
+public interface PushSender {
+
+  // fcm accepts at most 500 tokens per multicast
+  int MAX_TOKENS = 500;
+
+  // result i belongs to token i
+  List<PushResult> sendMulticast(Notification notification, List<String> tokens) throws Exception;
+}
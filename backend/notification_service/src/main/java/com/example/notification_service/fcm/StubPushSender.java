@@ -0,0 +1,33 @@
+package com.example.notification_service.fcm;
+
+import com.google.firebase.messaging.Notification;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// local/test replacement for firebase: nothing leaves the service,
+// tokens starting with "invalid" fail as UNREGISTERED and every call waits latency-ms like a real request
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notification.fcm.stub", havingValue = "true")
+public class StubPushSender implements PushSender {
+
+  @Value("${notification.fcm.stub-latency-ms:50}")
+  private long latencyMs;
+
+  @Override
+  public List<PushResult> sendMulticast(Notification notification, List<String> tokens) throws InterruptedException {
+    if (tokens.size() > MAX_TOKENS) {
+      throw new IllegalArgumentException("Multicast can not have more than " + MAX_TOKENS + " tokens");
+    }
+    Thread.sleep(latencyMs);
+    log.debug("Stub multicast to {} tokens", tokens.size());
+    return tokens.stream()
+        .map(token -> token.startsWith("invalid")
+            ? PushResult.failure(token, "UNREGISTERED", "Requested entity was not found.")
+            : PushResult.success(token))
+        .toList();
+  }
+}
@@ -1,17 +1,12 @@
 package com.example.notification_service.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.JoinTable;
-import jakarta.persistence.ManyToMany;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import lombok.Data;
 
@@ -29,12 +24,10 @@ public class Device {
 
   private LocalDateTime createdAt;
 
-  @ManyToMany(fetch = FetchType.EAGER)
-  @JoinTable(
-      name = "device_notification",
-      joinColumns = @JoinColumn(name = "device_id"),
-      inverseJoinColumns = @JoinColumn(name = "notification_id")
-  )
-  private List<NotificationDB> notifications = new ArrayList<>();
+  // false once fcm reported the token as dead, inactive devices get no push
+  @Column(columnDefinition = "boolean not null default true")
+  private Boolean active = true;
+
+  private LocalDateTime deactivatedAt;
 
 }
\ No newline at end of file
@@ -19,4 +19,7 @@ public class Notice implements Serializable {
   private Map<String, String> data;
 
   private List<String> registrationTokens;
+
+  // recipients of the inbox entry, independent of their devices
+  private List<String> userIds;
 }
@@ -1,17 +1,13 @@
 package com.example.notification_service.model;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.ManyToMany;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -36,16 +32,9 @@ public class NotificationDB {
 
   private String type;
 
-  private Boolean isRead = false;
-
+  // read state is per user, see NotificationReceipt
   private LocalDateTime createdAt;
 
-  private LocalDateTime readAt;
-
   @Column(columnDefinition = "TEXT")
   private String additionalData;
-
-  @ManyToMany(mappedBy = "notifications")
-  @JsonIgnore
-  private List<Device> devices = new ArrayList<>();
 }
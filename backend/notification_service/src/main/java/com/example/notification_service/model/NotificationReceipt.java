@@ -0,0 +1,60 @@
+package com.example.notification_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one row per recipient of a notification, the notification itself is stored once
+@Entity
+@Data
+@IdClass(NotificationReceipt.Key.class)
+@Table(name = "notification_receipt", indexes = {
+    @Index(name = "notification_receipt_user_created_idx", columnList = "user_id, created_at, notification_id"),
+    @Index(name = "notification_receipt_user_read_created_idx", columnList = "user_id, is_read, created_at, notification_id")
+})
+public class NotificationReceipt {
+
+  @Id
+  @Column(name = "notification_id")
+  private Long notificationId;
+
+  @Id
+  @Column(name = "user_id")
+  private String userId;
+
+  @Column(name = "is_read", columnDefinition = "boolean not null default false")
+  private Boolean isRead = false;
+
+  private LocalDateTime readAt;
+
+  // copied from the notification so the inbox is ordered from this table alone
+  @Column(name = "created_at")
+  private LocalDateTime createdAt;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "notification_id", insertable = false, updatable = false)
+  @JsonIgnore
+  private NotificationDB notification;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    private Long notificationId;
+
+    private String userId;
+  }
+}
@@ -0,0 +1,21 @@
+package com.example.notification_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// unread receipts per user, updated together with notification_receipt
+@Entity
+@Data
+@Table(name = "notification_unread_counter")
+public class NotificationUnreadCounter {
+
+  @Id
+  @Column(name = "user_id")
+  private String userId;
+
+  @Column(name = "unread_count", columnDefinition = "bigint not null default 0")
+  private Long unreadCount = 0L;
+}
@@ -1,10 +1,16 @@
 package com.example.notification_service.repository;
 
 import com.example.notification_service.model.Device;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long> {
@@ -16,4 +22,12 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
   List<Device> findByUserIdIn(List<String> userIds);
 
   List<Device> findByFcmTokenIn(List<String> fcmToken);
+
+  @Query("SELECT d.fcmToken FROM Device d WHERE d.userId IN :userIds AND d.active = true")
+  List<String> findActiveTokensByUserIdIn(@Param("userIds") List<String> userIds);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE Device d SET d.active = false, d.deactivatedAt = :now WHERE d.fcmToken IN :tokens AND d.active = true")
+  int deactivateByFcmTokenIn(@Param("tokens") Collection<String> tokens, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,50 @@
+package com.example.notification_service.repository;
+
+import com.example.notification_service.model.NotificationReceipt;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface NotificationReceiptRepository extends JpaRepository<NotificationReceipt, NotificationReceipt.Key> {
+
+  @Query("SELECT r FROM NotificationReceipt r JOIN FETCH r.notification WHERE r.userId = :userId "
+      + "AND (:isRead is null or r.isRead = :isRead) ORDER BY r.createdAt DESC, r.notificationId DESC")
+  List<NotificationReceipt> findInbox(@Param("userId") String userId, @Param("isRead") Boolean isRead);
+
+  // keyset pages of the inbox, newest first, the cursor is the last (createdAt, notificationId) of the previous page
+  @Query("SELECT r FROM NotificationReceipt r JOIN FETCH r.notification WHERE r.userId = :userId "
+      + "AND (:isRead is null or r.isRead = :isRead) ORDER BY r.createdAt DESC, r.notificationId DESC")
+  List<NotificationReceipt> findInboxPage(@Param("userId") String userId, @Param("isRead") Boolean isRead,
+      Pageable pageable);
+
+  @Query("SELECT r FROM NotificationReceipt r JOIN FETCH r.notification WHERE r.userId = :userId "
+      + "AND (:isRead is null or r.isRead = :isRead) "
+      + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.notificationId < :notificationId)) "
+      + "ORDER BY r.createdAt DESC, r.notificationId DESC")
+  List<NotificationReceipt> findInboxPageAfter(@Param("userId") String userId, @Param("isRead") Boolean isRead,
+      @Param("createdAt") LocalDateTime createdAt, @Param("notificationId") Long notificationId, Pageable pageable);
+
+  @Query("SELECT r FROM NotificationReceipt r JOIN FETCH r.notification WHERE r.notificationId = :notificationId AND r.userId = :userId")
+  Optional<NotificationReceipt> findByNotificationIdAndUserId(@Param("notificationId") Long notificationId,
+      @Param("userId") String userId);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE NotificationReceipt r SET r.isRead = true, r.readAt = :now "
+      + "WHERE r.notificationId = :notificationId AND r.userId = :userId AND r.isRead = false")
+  int markRead(@Param("notificationId") Long notificationId, @Param("userId") String userId,
+      @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE NotificationReceipt r SET r.isRead = true, r.readAt = :now WHERE r.userId = :userId AND r.isRead = false")
+  int markAllRead(@Param("userId") String userId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,24 @@
+package com.example.notification_service.repository;
+
+import com.example.notification_service.model.NotificationUnreadCounter;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// increments are written by NotificationService together with the receipts
+@Repository
+public interface NotificationUnreadCounterRepository extends JpaRepository<NotificationUnreadCounter, String> {
+
+  @Query("SELECT c.unreadCount FROM NotificationUnreadCounter c WHERE c.userId = :userId")
+  Optional<Long> findUnreadCount(@Param("userId") String userId);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE NotificationUnreadCounter c SET c.unreadCount = "
+      + "CASE WHEN c.unreadCount > :count THEN c.unreadCount - :count ELSE 0L END WHERE c.userId = :userId")
+  int decrement(@Param("userId") String userId, @Param("count") long count);
+}
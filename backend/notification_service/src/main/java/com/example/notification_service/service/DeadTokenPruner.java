@@ -0,0 +1,89 @@
+package com.example.notification_service.service;
+
+import com.example.notification_service.fcm.PushDispatchResult;
+import com.example.notification_service.fcm.PushResult;
+import com.example.notification_service.repository.DeviceRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// collects tokens fcm reported as dead and deactivates their devices in bulk, off the send path
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeadTokenPruner {
+
+  // the token will never work again (app uninstalled / reinstalled, token of another firebase project)
+  private static final Set<String> DEAD_TOKEN_ERRORS = Set.of("UNREGISTERED", "SENDER_ID_MISMATCH");
+
+  private final DeviceRepository deviceRepository;
+  private final ConcurrentLinkedQueue<String> deadTokens = new ConcurrentLinkedQueue<>();
+
+  @Value("${notification.fcm.prune-batch-size:500}")
+  private int batchSize;
+
+  public void collect(PushDispatchResult result) {
+    for (PushResult failure : result.failures()) {
+      if (isDeadToken(failure, result)) {
+        deadTokens.add(failure.token());
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${notification.fcm.prune-delay-ms:30000}")
+  public void prune() {
+    // only the tokens queued when the run started, a failed batch is queued again and ends the run
+    int pending = deadTokens.size();
+    int deactivated = 0;
+    while (pending > 0) {
+      List<String> batch = new ArrayList<>(Math.min(pending, batchSize));
+      String token;
+      while (batch.size() < Math.min(pending, batchSize) && (token = deadTokens.poll()) != null) {
+        batch.add(token);
+      }
+      if (batch.isEmpty()) {
+        break;
+      }
+      pending -= batch.size();
+      int count = deactivate(batch);
+      if (count < 0) {
+        break;
+      }
+      deactivated += count;
+    }
+    if (deactivated > 0) {
+      log.info("Deactivated {} devices with dead fcm tokens", deactivated);
+    }
+  }
+
+  // number of deactivated devices, -1 when the update failed and the tokens were queued again
+  private int deactivate(List<String> tokens) {
+    try {
+      return deviceRepository.deactivateByFcmTokenIn(List.copyOf(tokens), LocalDateTime.now());
+    } catch (RuntimeException e) {
+      // tried again on the next run
+      log.warn("Failed to deactivate {} fcm tokens: {}", tokens.size(), e.getMessage());
+      deadTokens.addAll(tokens);
+      return -1;
+    }
+  }
+
+  // INVALID_ARGUMENT is also returned for a bad payload, it only means a bad token
+  // when other tokens of the same notification went through
+  boolean isDeadToken(PushResult failure, PushDispatchResult result) {
+    if (failure.errorCode() == null) {
+      return false;
+    }
+    if (DEAD_TOKEN_ERRORS.contains(failure.errorCode())) {
+      return true;
+    }
+    return "INVALID_ARGUMENT".equals(failure.errorCode()) && result.successCount() > 0;
+  }
+}
@@ -5,7 +5,6 @@ import com.example.notification_service.repository.DeviceRepository;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -25,14 +24,17 @@ public class DeviceService {
       device.setFcmToken(fcmToken);
       device.setCreatedAt(LocalDateTime.now());
       deviceRepository.save(device);
+    } else if (!Boolean.TRUE.equals(existingDevice.get().getActive())) {
+      // the app registered a token that was pruned before, it is valid again
+      Device device = existingDevice.get();
+      device.setActive(true);
+      device.setDeactivatedAt(null);
+      deviceRepository.save(device);
     }
   }
 
 
   public List<String> getFCMTokenFromListUsers(List<String> userIds) {
-    return deviceRepository.findByUserIdIn(userIds)
-        .stream()
-        .map(Device::getFcmToken)
-        .collect(Collectors.toList());
+    return deviceRepository.findActiveTokensByUserIdIn(userIds);
   }
 }
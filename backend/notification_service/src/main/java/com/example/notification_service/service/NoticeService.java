@@ -43,6 +43,7 @@ public class NoticeService {
     notice.setContent(notificationDTO.getContent());
     notice.setData(eventData);
     notice.setRegistrationTokens(fcmToken);
+    notice.setUserIds(userIds);
 
     return notice;
   }
@@ -1,119 +1,249 @@
 package com.example.notification_service.service;
 
-import com.example.notification_service.model.Device;
+import com.example.notification_service.dto.response.NotificationItemResponse;
+import com.example.notification_service.dto.response.NotificationPageResponse;
+import com.example.notification_service.fcm.PushDispatchResult;
+import com.example.notification_service.fcm.PushResult;
 import com.example.notification_service.model.Notice;
 import com.example.notification_service.model.NotificationDB;
-import com.example.notification_service.repository.DeviceRepository;
+import com.example.notification_service.model.NotificationReceipt;
+import com.example.notification_service.repository.NotificationReceiptRepository;
 import com.example.notification_service.repository.NotificationRepository;
-import com.google.firebase.messaging.BatchResponse;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.FirebaseMessagingException;
-import com.google.firebase.messaging.MulticastMessage;
+import com.example.notification_service.repository.NotificationUnreadCounterRepository;
 import com.google.firebase.messaging.Notification;
-import com.google.firebase.messaging.SendResponse;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
-  private final DeviceRepository deviceRepository;
+  // the unread counter is only incremented for receipts that were really inserted
+  private static final String INSERT_RECEIPT = """
+      WITH inserted AS (
+          INSERT INTO notification_receipt (notification_id, user_id, is_read, created_at)
+          VALUES (?, ?, false, ?)
+          ON CONFLICT DO NOTHING
+          RETURNING user_id
+      )
+      INSERT INTO notification_unread_counter AS c (user_id, unread_count)
+      SELECT user_id, 1 FROM inserted
+      ON CONFLICT (user_id) DO UPDATE SET unread_count = c.unread_count + 1
+      """;
+  private static final int[] RECEIPT_TYPES = {Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP};
+
+  private static final String MIGRATE_RECEIPTS = """
+      INSERT INTO notification_receipt (notification_id, user_id, is_read, read_at, created_at)
+      SELECT DISTINCT dn.notification_id, d.user_id, COALESCE(n.is_read, false), n.read_at, n.created_at
+      FROM device_notification dn
+      JOIN device d ON d.id = dn.device_id
+      JOIN notification_db n ON n.id = dn.notification_id
+      WHERE d.user_id IS NOT NULL
+      ON CONFLICT DO NOTHING
+      """;
+
+  private static final String CREATE_MIGRATION_TABLE = """
+      CREATE TABLE IF NOT EXISTS notification_migration (
+          name varchar(100) PRIMARY KEY,
+          completed_at timestamp NOT NULL
+      )
+      """;
+
+  private static final String INIT_UNREAD_COUNTERS = """
+      INSERT INTO notification_unread_counter (user_id, unread_count)
+      SELECT user_id, COUNT(*) FROM notification_receipt WHERE is_read = false GROUP BY user_id
+      ON CONFLICT (user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count
+      """;
+
   private final NotificationRepository notificationRepository;
+  private final NotificationReceiptRepository notificationReceiptRepository;
+  private final NotificationUnreadCounterRepository notificationUnreadCounterRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final PlatformTransactionManager transactionManager;
+  private final PushDispatchService pushDispatchService;
+  private final DeadTokenPruner deadTokenPruner;
+
+  @Value("${notification.inbox.default-page-size:20}")
+  private int defaultPageSize;
 
+  @Value("${notification.inbox.max-page-size:100}")
+  private int maxPageSize;
 
-  public void sendMulticastNotification(Notice notice) throws FirebaseMessagingException {
+
+  public PushDispatchResult sendMulticastNotification(Notice notice) {
     // Create the notification payload
     Notification notification = Notification.builder()
         .setTitle(notice.getSubject())
         .setBody(notice.getContent())
         .build();
 
-    // Create the message
-    MulticastMessage message = MulticastMessage.builder()
-        .setNotification(notification)
-        .addAllTokens(notice.getRegistrationTokens())
-        .build();
+    // chunked by 500 tokens and sent in parallel
+    PushDispatchResult result = pushDispatchService.dispatch(notification, notice.getRegistrationTokens());
 
-    // Send the multicast message
-    BatchResponse response = FirebaseMessaging.getInstance().sendEachForMulticast(message);
-
-    // Handle the response
-    if (response.getFailureCount() > 0) {
-      List<SendResponse> responses = response.getResponses();
-      for (int i = 0; i < responses.size(); i++) {
-        if (!responses.get(i).isSuccessful()) {
-          System.err.println("Failed to send message to token: " + notice.getRegistrationTokens().get(i));
-          System.err.println("Error: " + responses.get(i).getException().getMessage());
-        }
-      }
+    for (PushResult failure : result.failures()) {
+      log.warn("Failed to send message to token {}: {} {}", failure.token(), failure.errorCode(), failure.errorMessage());
     }
-
-    System.out.println("Successfully sent message to " + response.getSuccessCount() + " devices.");
+    // dead tokens are deactivated by a background job
+    deadTokenPruner.collect(result);
+    return result;
   }
 
+  @Transactional
   public void saveNotification(Notice notice) {
-
-    List<Device> devices = deviceRepository.findByFcmTokenIn(notice.getRegistrationTokens());
-
-
     NotificationDB notificationDB = new NotificationDB();
     notificationDB.setTitle(notice.getSubject());
     notificationDB.setBody(notice.getContent());
     notificationDB.setAdditionalData(notice.getData().toString());
-    notificationDB.setIsRead(false);
     notificationDB.setCreatedAt(LocalDateTime.now());
 
-    notificationDB.setDevices(devices);
-
     notificationRepository.save(notificationDB);
 
-    for (Device device : devices) {
-      device.getNotifications().add(notificationDB);
-      deviceRepository.save(device);
-    }
+    // one receipt per user in jdbc batches, devices are not touched
+    // sorted so concurrent consumers lock the counter rows in the same order
+    List<String> userIds = notice.getUserIds() == null ? List.of()
+        : notice.getUserIds().stream().distinct().sorted().toList();
+    Timestamp createdAt = Timestamp.valueOf(notificationDB.getCreatedAt());
+    List<Object[]> rows = userIds.stream()
+        .map(userId -> new Object[]{notificationDB.getId(), userId, createdAt})
+        .toList();
+    jdbcTemplate.batchUpdate(INSERT_RECEIPT, rows, RECEIPT_TYPES);
   }
 
-  public NotificationDB getNotification(Long id) {
-    // Device device = deviceRepository.findByUserId(userId).getFirst();
-    return notificationRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Notification not found"));
+  public NotificationItemResponse getNotification(Long id, String userId) {
+    return NotificationItemResponse.from(findReceipt(id, userId));
   }
 
-  public List<NotificationDB> getNotifications(String userId, Boolean isRead) {
-    Device device = deviceRepository.findByUserId(userId).getFirst();
+  public List<NotificationItemResponse> getNotifications(String userId, Boolean isRead) {
+    return notificationReceiptRepository.findInbox(userId, isRead).stream()
+        .map(NotificationItemResponse::from)
+        .toList();
+  }
 
-    return notificationRepository.getNotificationsByIdAndRead(device.getId(), isRead);
+  // one extra row is read to know whether there is a next page
+  public NotificationPageResponse getNotificationPage(String userId, Boolean isRead, String cursor, Integer size) {
+    int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+    PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+    List<NotificationReceipt> receipts;
+    if (cursor == null || cursor.isEmpty()) {
+      receipts = notificationReceiptRepository.findInboxPage(userId, isRead, limit);
+    } else {
+      String[] position = decodeCursor(cursor);
+      receipts = notificationReceiptRepository.findInboxPageAfter(userId, isRead,
+          LocalDateTime.parse(position[0]), Long.parseLong(position[1]), limit);
+    }
+
+    boolean hasMore = receipts.size() > pageSize;
+    if (hasMore) {
+      receipts = receipts.subList(0, pageSize);
+    }
+    return NotificationPageResponse.builder()
+        .items(receipts.stream().map(NotificationItemResponse::from).toList())
+        .nextCursor(hasMore ? encodeCursor(receipts.getLast()) : null)
+        .hasMore(hasMore)
+        .build();
   }
 
-  public NotificationDB readNotification(Long id) {
-    NotificationDB notificationDB = notificationRepository.findById(id).orElse(null);
+  @Transactional
+  public NotificationItemResponse readNotification(Long id, String userId) {
+    if (notificationReceiptRepository.markRead(id, userId, LocalDateTime.now()) > 0) {
+      notificationUnreadCounterRepository.decrement(userId, 1);
+    }
+    return NotificationItemResponse.from(findReceipt(id, userId));
+  }
 
-    if (notificationDB == null) {
-      throw new RuntimeException("Notification not found");
+  // one update over all notifications of the user, whatever device they came from
+  @Transactional
+  public int readAllNotification(String credentialId) {
+    int count = notificationReceiptRepository.markAllRead(credentialId, LocalDateTime.now());
+    if (count > 0) {
+      notificationUnreadCounterRepository.decrement(credentialId, count);
     }
+    return count;
+  }
 
-    notificationDB.setIsRead(true);
-    notificationDB.setReadAt(LocalDateTime.now());
+  // read from the counter row, the receipts are not counted
+  public long getUnreadCount(String userId) {
+    return notificationUnreadCounterRepository.findUnreadCount(userId).orElse(0L);
+  }
 
-    return notificationRepository.save(notificationDB);
+  // runs before the kafka listeners are started, so no receipt is written while the counters are filled.
+  // a failure stops the startup, each step is recorded in notification_migration once it is committed
+  @PostConstruct
+  public void prepareInbox() {
+    jdbcTemplate.execute(CREATE_MIGRATION_TABLE);
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      // other instances starting at the same time wait here and then find the steps done
+      jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtext('notification_migration'))", rs -> {
+      });
+      runOnce("legacy_receipts", this::migrateLegacyReceipts);
+      runOnce("unread_counters", this::initUnreadCounters);
+    });
   }
 
-  public void readAllNotification(String credentialId) {
-    Device device = deviceRepository.findByUserId(credentialId).getFirst();
+  private void runOnce(String name, Runnable step) {
+    Boolean done = jdbcTemplate.queryForObject(
+        "SELECT EXISTS (SELECT 1 FROM notification_migration WHERE name = ?)", Boolean.class, name);
+    if (Boolean.TRUE.equals(done)) {
+      return;
+    }
+    step.run();
+    jdbcTemplate.update("INSERT INTO notification_migration (name, completed_at) VALUES (?, now())", name);
+  }
 
-    List<NotificationDB> notifications = notificationRepository.findByDevicesIdAndIsRead(
-        device.getId(), false);
+  // copies the old device_notification links, read state was shared by all users of a notification
+  private void migrateLegacyReceipts() {
+    Boolean legacy = jdbcTemplate.queryForObject(
+        "SELECT to_regclass('device_notification') IS NOT NULL", Boolean.class);
+    if (Boolean.TRUE.equals(legacy)) {
+      int count = jdbcTemplate.update(MIGRATE_RECEIPTS);
+      log.info("Migrated {} notification receipts from device_notification", count);
+    }
+  }
+
+  // counters are filled from the receipts once, after that they are kept up to date on every write
+  private void initUnreadCounters() {
+    int count = jdbcTemplate.update(INIT_UNREAD_COUNTERS);
+    log.info("Initialized {} unread notification counters", count);
+  }
 
-    for (NotificationDB notification : notifications) {
-      notification.setIsRead(true);
-      notification.setReadAt(LocalDateTime.now());
+  // opaque for the client, createdAt and id of the last item
+  private String encodeCursor(NotificationReceipt receipt) {
+    String position = receipt.getCreatedAt() + "," + receipt.getNotificationId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String[] decodeCursor(String cursor) {
+    try {
+      String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+      if (position.length != 2) {
+        throw new IllegalArgumentException();
+      }
+      LocalDateTime.parse(position[0]);
+      Long.parseLong(position[1]);
+      return position;
+    } catch (RuntimeException e) {
+      throw new RuntimeException("Invalid cursor");
     }
+  }
 
-    notificationRepository.saveAll(notifications);
+  private NotificationReceipt findReceipt(Long id, String userId) {
+    return notificationReceiptRepository.findByNotificationIdAndUserId(id, userId)
+        .orElseThrow(() -> new RuntimeException("Notification not found"));
   }
 }
@@ -0,0 +1,113 @@
+package com.example.notification_service.service;
+
+import com.example.notification_service.fcm.PushDispatchResult;
+import com.example.notification_service.fcm.PushResult;
+import com.example.notification_service.fcm.PushSender;
+import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// splits the audience into multicasts of at most 500 tokens and sends them in parallel
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PushDispatchService {
+
+  private final PushSender pushSender;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${notification.fcm.batch-size:500}")
+  private int batchSize;
+
+  @Value("${notification.fcm.threads:8}")
+  private int threads;
+
+  @Value("${notification.fcm.queue-capacity:64}")
+  private int queueCapacity;
+
+  private ExecutorService executor;
+  private Timer multicastTimer;
+  private Counter successCounter;
+  private Counter failureCounter;
+
+  @PostConstruct
+  public void init() {
+    // a chunk holds 1 to 500 tokens, 0 or less would never advance through the audience
+    batchSize = Math.max(1, Math.min(batchSize, PushSender.MAX_TOKENS));
+    // when the queue is full the kafka listener thread sends the chunk itself, which slows down consumption
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+    multicastTimer = Timer.builder("notification.fcm.multicast")
+        .description("Time of one fcm multicast request")
+        .register(meterRegistry);
+    successCounter = Counter.builder("notification.fcm.tokens")
+        .tag("result", "success")
+        .description("Tokens a notification was sent to")
+        .register(meterRegistry);
+    failureCounter = Counter.builder("notification.fcm.tokens")
+        .tag("result", "failure")
+        .description("Tokens a notification was sent to")
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  public PushDispatchResult dispatch(Notification notification, List<String> tokens) {
+    List<String> distinctTokens = tokens.stream().filter(Objects::nonNull).distinct().toList();
+    int chunkSize = batchSize;
+
+    List<CompletableFuture<List<PushResult>>> chunks = new ArrayList<>();
+    for (int from = 0; from < distinctTokens.size(); from += chunkSize) {
+      List<String> chunk = distinctTokens.subList(from, Math.min(from + chunkSize, distinctTokens.size()));
+      chunks.add(CompletableFuture.supplyAsync(() -> sendChunk(notification, chunk), executor));
+    }
+
+    int successCount = 0;
+    List<PushResult> failures = new ArrayList<>();
+    for (CompletableFuture<List<PushResult>> chunk : chunks) {
+      for (PushResult result : chunk.join()) {
+        if (result.success()) {
+          successCount++;
+        } else {
+          failures.add(result);
+        }
+      }
+    }
+
+    successCounter.increment(successCount);
+    failureCounter.increment(failures.size());
+    log.info("Sent notification to {} devices in {} chunks, {} failed", successCount, chunks.size(), failures.size());
+    return new PushDispatchResult(successCount, failures.size(), failures);
+  }
+
+  private List<PushResult> sendChunk(Notification notification, List<String> tokens) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return pushSender.sendMulticast(notification, tokens);
+    } catch (Exception e) {
+      // the whole request failed (auth, network), the other chunks are still sent
+      log.error("Failed to send multicast to {} tokens: {}", tokens.size(), e.getMessage());
+      return tokens.stream().map(token -> PushResult.failure(token, null, e.getMessage())).toList();
+    } finally {
+      sample.stop(multicastTimer);
+    }
+  }
+}
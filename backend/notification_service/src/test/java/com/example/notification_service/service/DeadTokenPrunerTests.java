@@ -0,0 +1,82 @@
+package com.example.notification_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.notification_service.fcm.PushDispatchResult;
+import com.example.notification_service.fcm.PushResult;
+import com.example.notification_service.repository.DeviceRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DeadTokenPrunerTests {
+
+  private final DeviceRepository deviceRepository = mock(DeviceRepository.class);
+  private final DeadTokenPruner deadTokenPruner = new DeadTokenPruner(deviceRepository);
+
+  private static PushDispatchResult result(int successCount, PushResult... failures) {
+    return new PushDispatchResult(successCount, failures.length, List.of(failures));
+  }
+
+  private static PushResult failure(String errorCode) {
+    return PushResult.failure("token", errorCode, "error");
+  }
+
+  @Test
+  void unregisteredAndSenderIdMismatchAreAlwaysDead() {
+    assertTrue(deadTokenPruner.isDeadToken(failure("UNREGISTERED"), result(0, failure("UNREGISTERED"))));
+    assertTrue(deadTokenPruner.isDeadToken(failure("SENDER_ID_MISMATCH"), result(0, failure("SENDER_ID_MISMATCH"))));
+  }
+
+  @Test
+  void invalidArgumentIsDeadOnlyWhenOtherTokensSucceeded() {
+    assertTrue(deadTokenPruner.isDeadToken(failure("INVALID_ARGUMENT"), result(5, failure("INVALID_ARGUMENT"))));
+    assertFalse(deadTokenPruner.isDeadToken(failure("INVALID_ARGUMENT"), result(0, failure("INVALID_ARGUMENT"))));
+  }
+
+  @Test
+  void transientErrorsAreNotDead() {
+    assertFalse(deadTokenPruner.isDeadToken(failure("UNAVAILABLE"), result(5, failure("UNAVAILABLE"))));
+    assertFalse(deadTokenPruner.isDeadToken(failure("QUOTA_EXCEEDED"), result(5, failure("QUOTA_EXCEEDED"))));
+    assertFalse(deadTokenPruner.isDeadToken(failure(null), result(5, failure(null))));
+  }
+
+  @Test
+  void pruneDeactivatesCollectedDeadTokens() {
+    ReflectionTestUtils.setField(deadTokenPruner, "batchSize", 500);
+    deadTokenPruner.collect(result(1,
+        PushResult.failure("dead", "UNREGISTERED", "error"),
+        PushResult.failure("alive", "UNAVAILABLE", "error")));
+
+    deadTokenPruner.prune();
+
+    verify(deviceRepository).deactivateByFcmTokenIn(argThat(tokens -> List.copyOf(tokens).equals(List.of("dead"))),
+        any());
+  }
+
+  @Test
+  void failedBatchIsQueuedAgainAndEndsTheRun() {
+    ReflectionTestUtils.setField(deadTokenPruner, "batchSize", 1);
+    when(deviceRepository.deactivateByFcmTokenIn(any(), any())).thenThrow(new RuntimeException("database down"));
+    deadTokenPruner.collect(result(1,
+        PushResult.failure("first", "UNREGISTERED", "error"),
+        PushResult.failure("second", "UNREGISTERED", "error")));
+
+    deadTokenPruner.prune();
+
+    verify(deviceRepository, times(1)).deactivateByFcmTokenIn(any(), any());
+
+    reset(deviceRepository);
+    deadTokenPruner.prune();
+
+    verify(deviceRepository, times(2)).deactivateByFcmTokenIn(any(), any());
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.notification_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.notification_service.fcm.PushDispatchResult;
+import com.example.notification_service.fcm.PushSender;
+import com.example.notification_service.fcm.StubPushSender;
+import com.google.firebase.messaging.Notification;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PushDispatchServiceTests {
+
+  private final Notification notification = Notification.builder().setTitle("title").setBody("body").build();
+  // sizes of the multicasts that reached the stub
+  private final List<Integer> chunkSizes = new CopyOnWriteArrayList<>();
+  private PushDispatchService pushDispatchService;
+
+  private PushDispatchService createService(int batchSize) {
+    StubPushSender stub = new StubPushSender();
+    ReflectionTestUtils.setField(stub, "latencyMs", 0L);
+    PushSender recordingSender = (sent, tokens) -> {
+      chunkSizes.add(tokens.size());
+      return stub.sendMulticast(sent, tokens);
+    };
+
+    pushDispatchService = new PushDispatchService(recordingSender, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(pushDispatchService, "batchSize", batchSize);
+    ReflectionTestUtils.setField(pushDispatchService, "threads", 4);
+    ReflectionTestUtils.setField(pushDispatchService, "queueCapacity", 16);
+    pushDispatchService.init();
+    return pushDispatchService;
+  }
+
+  @AfterEach
+  void shutdown() {
+    pushDispatchService.shutdown();
+  }
+
+  @Test
+  void splitsTokensIntoChunksOfAtMost500() {
+    List<String> tokens = IntStream.range(0, 1201).mapToObj(i -> "token-" + i).toList();
+
+    PushDispatchResult result = createService(500).dispatch(notification, tokens);
+
+    assertEquals(3, chunkSizes.size());
+    assertTrue(chunkSizes.stream().allMatch(size -> size <= PushSender.MAX_TOKENS));
+    assertEquals(1201, chunkSizes.stream().mapToInt(Integer::intValue).sum());
+    assertEquals(1201, result.successCount());
+    assertEquals(0, result.failureCount());
+  }
+
+  @Test
+  void aggregatesInvalidTokensAsFailures() {
+    List<String> tokens = new ArrayList<>();
+    IntStream.range(0, 700).forEach(i -> tokens.add("token-" + i));
+    IntStream.range(0, 30).forEach(i -> tokens.add("invalid-" + i));
+    // duplicates are sent once
+    tokens.add("token-0");
+
+    PushDispatchResult result = createService(500).dispatch(notification, tokens);
+
+    assertEquals(700, result.successCount());
+    assertEquals(30, result.failureCount());
+    assertEquals(30, result.failures().size());
+    assertTrue(result.failures().stream()
+        .allMatch(failure -> failure.token().startsWith("invalid") && "UNREGISTERED".equals(failure.errorCode())));
+  }
+
+  @Test
+  void clampsBatchSize() {
+    List<String> tokens = IntStream.range(0, 3).mapToObj(i -> "token-" + i).toList();
+
+    PushDispatchResult result = createService(0).dispatch(notification, tokens);
+
+    assertEquals(List.of(1, 1, 1), chunkSizes);
+    assertEquals(3, result.successCount());
+  }
+
+  @Test
+  void clampsBatchSizeToFcmLimit() {
+    List<String> tokens = IntStream.range(0, 600).mapToObj(i -> "token-" + i).toList();
+
+    createService(1000).dispatch(notification, tokens);
+
+    assertEquals(2, chunkSizes.size());
+    assertTrue(chunkSizes.stream().allMatch(size -> size <= PushSender.MAX_TOKENS));
+  }
+}
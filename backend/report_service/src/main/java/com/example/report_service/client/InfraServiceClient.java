@@ -4,7 +4,9 @@ package com.example.report_service.client;
 import com.example.report_service.dto.ApiResponse;
 import com.example.report_service.dto.request.CameraReportRequest;
 import com.example.report_service.dto.response.ReportResponse;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,4 +22,12 @@ public interface InfraServiceClient {
   @PostMapping("/api/infrastructures/report/camera")
   ApiResponse<ReportResponse> getInfraReport(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId);
 
+  // changes when events of the camera in the range change, also checks the camera access of the user
+  @PostMapping("/api/infrastructures/report/camera/version")
+  ApiResponse<String> getCameraReportVersion(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId);
+
+  // NDJSON, one ObjectHistory per line, the body is read while the workbook is written and must be closed
+  @PostMapping(value = "/api/infrastructures/report/camera/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  Response streamInfraReport(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId);
+
 }
@@ -0,0 +1,84 @@
+package com.example.report_service.client;
+
+import io.minio.BucketExistsArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class MinioService {
+
+  private final MinioClient minioClient;
+  private final Set<String> knownBuckets = ConcurrentHashMap.newKeySet();
+
+  public void uploadFile(Path file, String bucketName, String fileName, String contentType) {
+    try {
+      ensureBucket(bucketName);
+      minioClient.uploadObject(
+          UploadObjectArgs.builder()
+              .bucket(bucketName)
+              .object(fileName)
+              .filename(file.toString())
+              .contentType(contentType)
+              .build()
+      );
+    } catch (Exception e) {
+      throw new RuntimeException("Error uploading file to MinIO", e);
+    }
+  }
+
+  public boolean exists(String bucketName, String fileName) {
+    try {
+      minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(fileName).build());
+      return true;
+    } catch (ErrorResponseException e) {
+      // NoSuchKey, NoSuchBucket
+      return false;
+    } catch (Exception e) {
+      throw new RuntimeException("Error reading file info from MinIO", e);
+    }
+  }
+
+  public String getPresignedUrl(String bucketName, String fileName, int expiryMinutes) {
+    try {
+      return minioClient.getPresignedObjectUrl(
+          GetPresignedObjectUrlArgs.builder()
+              .method(Method.GET)
+              .bucket(bucketName)
+              .object(fileName)
+              .expiry(expiryMinutes, TimeUnit.MINUTES)
+              .build()
+      );
+    } catch (Exception e) {
+      throw new RuntimeException("Error creating MinIO download url", e);
+    }
+  }
+
+  private void ensureBucket(String bucketName) throws Exception {
+    if (knownBuckets.contains(bucketName)) {
+      return;
+    }
+    if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build())) {
+      try {
+        minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
+      } catch (ErrorResponseException e) {
+        // another job created it first
+        if (!"BucketAlreadyOwnedByYou".equals(e.errorResponse().code())) {
+          throw e;
+        }
+      }
+    }
+    knownBuckets.add(bucketName);
+  }
+}
@@ -3,13 +3,16 @@ package com.example.report_service.controller;
 import com.example.report_service.dto.ApiResponse;
 import com.example.report_service.dto.request.CameraReportRequest;
 import com.example.report_service.dto.request.EventRequest;
+import com.example.report_service.dto.response.ReportJobResponse;
 import com.example.report_service.dto.response.ReportResponse;
+import com.example.report_service.service.ReportJobService;
 import com.example.report_service.service.ReportService;
 import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +23,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -27,47 +31,62 @@ import org.springframework.web.bind.annotation.RestController;
 public class ReportController {
 
   private final ReportService reportService;
+  private final ReportJobService reportJobService;
 
   @GetMapping("/infra/{infraId}")
-  public ResponseEntity<ByteArrayResource> getHistoryReport(@PathVariable String infraId) {
+  public ResponseEntity<StreamingResponseBody> getHistoryReport(@PathVariable String infraId) {
     try {
-      // Generate Excel file
-      byte[] excelContent = reportService.getHistoryReport(infraId);
-
-      // Create response with file download
-      ByteArrayResource resource = new ByteArrayResource(excelContent);
-
-      return ResponseEntity.ok()
-          .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-          .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Camera_Report_" +
-              System.currentTimeMillis() + ".xlsx")
-          .contentLength(excelContent.length)
-          .body(resource);
-
+      // Generate Excel file, written straight to the response
+      return excelResponse(reportService.getHistoryReport(infraId));
     } catch (Exception e) {
       return ResponseEntity.internalServerError().build();
     }
   }
 
   @PostMapping ("/camera")
-  public ResponseEntity<ByteArrayResource> getCameraReport(@RequestBody CameraReportRequest request ,@RequestHeader("X-Credential-Id") String credentialId) {
+  public ResponseEntity<StreamingResponseBody> getCameraReport(@RequestBody CameraReportRequest request ,@RequestHeader("X-Credential-Id") String credentialId) {
     try {
-      // Generate Excel file
-      byte[] excelContent = reportService.getCameraReport(request, credentialId);
+      // Generate Excel file, written straight to the response
+      return excelResponse(reportService.getCameraReport(request, credentialId));
+    } catch (Exception e) {
+      return ResponseEntity.internalServerError().build();
+    }
+  }
 
-      // Create response with file download
-      ByteArrayResource resource = new ByteArrayResource(excelContent);
+  // async variant of /camera: submit, poll the job, then download from minio
+  @PostMapping("/camera/jobs")
+  public ApiResponse<ReportJobResponse> submitCameraReport(@RequestBody CameraReportRequest request, @RequestHeader("X-Credential-Id") String credentialId) {
+    return ApiResponse.<ReportJobResponse>builder()
+        .message("camera report job submitted")
+        .data(reportJobService.submitCameraReport(request, credentialId))
+        .build();
+  }
 
-      return ResponseEntity.ok()
-          .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-          .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Camera_Report_" +
-              System.currentTimeMillis() + ".xlsx")
-          .contentLength(excelContent.length)
-          .body(resource);
+  @GetMapping("/jobs/{jobId}")
+  public ApiResponse<ReportJobResponse> getReportJob(@PathVariable String jobId, @RequestHeader("X-Credential-Id") String credentialId) {
+    return ApiResponse.<ReportJobResponse>builder()
+        .message("get report job successfully")
+        .data(reportJobService.getJob(jobId, credentialId))
+        .build();
+  }
 
-    } catch (Exception e) {
-      return ResponseEntity.internalServerError().build();
+  // redirects to a presigned minio url, 409 while the report is not ready
+  @GetMapping("/jobs/{jobId}/download")
+  public ResponseEntity<Void> downloadReport(@PathVariable String jobId, @RequestHeader("X-Credential-Id") String credentialId) {
+    String url = reportJobService.getDownloadUrl(jobId, credentialId);
+    if (url == null) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).build();
     }
+    return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).build();
+  }
+
+  // the size is unknown until the workbook is written, so the response is chunked
+  private ResponseEntity<StreamingResponseBody> excelResponse(StreamingResponseBody body) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Camera_Report_" +
+            System.currentTimeMillis() + ".xlsx")
+        .body(body);
   }
 
 }
@@ -0,0 +1,22 @@
+package com.example.report_service.dto.response;
+
+import com.example.report_service.enums.ReportJobStatus;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportJobResponse {
+  private String jobId;
+  private ReportJobStatus status;
+  private LocalDateTime createdAt;
+  private LocalDateTime completedAt;
+  // presigned minio url, only set once the report is completed
+  private String downloadUrl;
+  private String error;
+}
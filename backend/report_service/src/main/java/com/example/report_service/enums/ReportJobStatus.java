@@ -0,0 +1,8 @@
+package com.example.report_service.enums;
+
+public enum ReportJobStatus {
+  PENDING,
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
@@ -3,75 +3,206 @@ package com.example.report_service.service;
 import com.example.report_service.dto.response.ReportResponse;
 import com.example.report_service.dto.response.ReportResponse.Event;
 import com.example.report_service.dto.response.ReportResponse.History;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFCellStyle;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
+// writes the report in one pass over the objects: the detail sheets get their rows as each object
+// arrives and the summary sheets are filled from running totals at the end
 public class ExcelReportService {
 
+  // only the first rows of each sheet are measured for the column widths
+  private static final int WIDTH_SAMPLE_ROWS = 500;
+  private static final int MAX_COLUMN_CHARS = 60;
+
+  private static final String[] DETAIL_HEADERS = {
+      "Camera ID", "Object ID", "Name", "Category",
+      "History Count", "Event Count", "History Time", "History Status", "Location",
+      "Status", "Confidence", "Latitude", "Longitude", "Last Updated"
+  };
+  private static final String[] HISTORY_HEADERS = {
+      "Object ID", "History ID", "Status", "Confidence",
+      "Level", "Date Captured", "Image Available"
+  };
+  private static final String[] EVENT_HEADERS = {
+      "Object ID", "Event ID", "Status", "Event Status", "Confidence",
+      "Level", "Start Time", "End Time", "Duration (min)", "Image Available"
+  };
+
   private ReportResponse reportData;
+  // number of rows kept in memory per sheet, older rows are flushed to a temp file
+  private final int rowWindow;
+
+  // running totals for the summary sheets
+  private final Set<String> uniqueObjects = new HashSet<>();
+  private final Set<String> uniqueCameras = new HashSet<>();
+  private final Map<String, Long> categoryCounts = new HashMap<>();
+  private long objectCount = 0;
+  private double objectConfidenceSum = 0;
+  private long totalEvents = 0;
+  private long successfulEvents = 0;
+  private final int[] confidenceCounts = new int[5];
+  private long totalHistories = 0;
+  // date -> {total, ok}
+  private final Map<String, long[]> dailyHistories = new HashMap<>();
+  private final Map<String, EventStatusTotals> eventsByStatus = new HashMap<>();
+
+  private static class EventStatusTotals {
+    long count;
+    long durationSum;
+    long durationCount;
+    double confidenceSum;
+  }
 
   public ExcelReportService(ReportResponse reportData) {
-    this.reportData = reportData;
+    this(reportData, SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
   }
 
-  public byte[] generateComprehensiveReport() throws Exception {
-    XSSFWorkbook workbook = new XSSFWorkbook();
-
-    // Styles
-    XSSFCellStyle headerStyle = createHeaderStyle(workbook);
-    XSSFCellStyle dataStyle = createDataStyle(workbook);
-    XSSFCellStyle dateStyle = createDateStyle(workbook);
-    XSSFCellStyle warningStyle = createWarningStyle(workbook);
-    XSSFCellStyle eventStyle = createEventStyle(workbook);
-
-    // Main Overview Sheet
-    XSSFSheet overviewSheet = workbook.createSheet("Overview");
-    createOverviewSheet(overviewSheet, headerStyle, dataStyle);
+  public ExcelReportService(ReportResponse reportData, int rowWindow) {
+    this.reportData = reportData;
+    this.rowWindow = rowWindow;
+  }
 
-    // Detailed Object History Sheet
-    XSSFSheet detailSheet = workbook.createSheet("Object Details");
-    createDetailSheet(detailSheet, headerStyle, dataStyle, dateStyle);
+  // for a report streamed object by object, see writeComprehensiveReport(Iterator, OutputStream)
+  public ExcelReportService(int rowWindow) {
+    this.rowWindow = rowWindow;
+  }
 
-    XSSFSheet historySheet = workbook.createSheet("Object Histories");
-    createObjectHistoriesSheet(historySheet, headerStyle, dataStyle, dateStyle, warningStyle);
+  public void writeComprehensiveReport(OutputStream outputStream) throws IOException {
+    writeComprehensiveReport(reportData.getObjects().iterator(), outputStream);
+  }
 
-    // Create Event Analysis Sheet
-    XSSFSheet eventSheet = workbook.createSheet("Event Analysis");
-    createEventAnalysisSheet(eventSheet, headerStyle, dataStyle, dateStyle, eventStyle);
+  // streams the workbook to the output, at most rowWindow rows per sheet are held in memory
+  // and each object can be dropped by the iterator once it has been written
+  public void writeComprehensiveReport(Iterator<ReportResponse.ObjectHistory> objects, OutputStream outputStream)
+      throws IOException {
+    SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+    workbook.setCompressTempFiles(true);
+    try {
+      // Styles
+      CellStyle headerStyle = createHeaderStyle(workbook);
+      CellStyle dataStyle = createDataStyle(workbook);
+      CellStyle dateStyle = createDateStyle(workbook);
+      CellStyle warningStyle = createWarningStyle(workbook);
+      CellStyle eventStyle = createEventStyle(workbook);
+
+      // sheets are created up front to keep their order, the summary ones are filled at the end
+      Sheet overviewSheet = workbook.createSheet("Overview");
+      Sheet detailSheet = workbook.createSheet("Object Details");
+      Sheet historySheet = workbook.createSheet("Object Histories");
+      Sheet eventSheet = workbook.createSheet("Event Analysis");
+      Sheet eventStatusSheet = workbook.createSheet("Event Status");
+      Sheet dailyStatusSheet = workbook.createSheet("Daily History Status");
+      Sheet categorySheet = workbook.createSheet("Category Analysis");
+      Sheet confidenceSheet = workbook.createSheet("Confidence Analysis");
+
+      ColumnWidths detailWidths = new ColumnWidths(DETAIL_HEADERS);
+      ColumnWidths historyWidths = new ColumnWidths(HISTORY_HEADERS);
+      ColumnWidths eventWidths = new ColumnWidths(EVENT_HEADERS);
+      createHeaderRow(detailSheet, DETAIL_HEADERS, headerStyle);
+      createHeaderRow(historySheet, HISTORY_HEADERS, headerStyle);
+      createHeaderRow(eventSheet, EVENT_HEADERS, headerStyle);
+
+      int detailRowNum = 1;
+      int historyRowNum = 1;
+      int eventRowNum = 1;
+      while (objects.hasNext()) {
+        ReportResponse.ObjectHistory objHistory = objects.next();
+        detailRowNum = writeDetailRows(detailSheet, detailRowNum, objHistory, dateStyle, detailWidths);
+        historyRowNum = writeHistoryRows(historySheet, historyRowNum, objHistory, dateStyle, warningStyle,
+            historyWidths);
+        eventRowNum = writeEventRows(eventSheet, eventRowNum, objHistory, dateStyle, eventStyle, eventWidths);
+        accumulate(objHistory);
+      }
+      detailWidths.apply(detailSheet);
+      historyWidths.apply(historySheet);
+      eventWidths.apply(eventSheet);
+
+      createOverviewSheet(overviewSheet, headerStyle, dataStyle);
+      createEventStatusSheet(eventStatusSheet, headerStyle, dataStyle);
+      createDailyHistoryStatusSheet(dailyStatusSheet, headerStyle, dataStyle);
+      createCategoryAnalysisSheet(categorySheet, headerStyle, dataStyle);
+      createConfidenceAnalysisSheet(confidenceSheet, headerStyle, dataStyle);
+
+      workbook.write(outputStream);
+    } finally {
+      // xóa file tạm của các sheet
+      workbook.dispose();
+      workbook.close();
+    }
+  }
 
-    // Create Event Status Sheet
-    XSSFSheet eventStatusSheet = workbook.createSheet("Event Status");
-    createEventStatusSheet(eventStatusSheet, headerStyle, dataStyle);
+  private void accumulate(ReportResponse.ObjectHistory objHistory) {
+    ReportResponse.InfraObject obj = objHistory.getInfraObject();
+    uniqueObjects.add(obj.getId());
+    uniqueCameras.add(obj.getCameraId());
+    categoryCounts.merge(obj.getCategory(), 1L, Long::sum);
+    objectCount++;
+    objectConfidenceSum += obj.getConfidence();
+
+    for (History history : objHistory.getHistories()) {
+      double confidence = history.getConfidence()*100.0; // Lấy confidence từ từng history
+      int index = (int) (confidence / 20);
+      if (index == 5) index = 4;  // Handle 100%
+      confidenceCounts[index]++;
+      totalHistories++;
+
+      long[] daily = dailyHistories.computeIfAbsent(
+          history.getDateCaptured().toLocalDate().format(DateTimeFormatter.ISO_LOCAL_DATE), d -> new long[2]);
+      daily[0]++;
+      if ("OK".equals(history.getStatus())) {
+        daily[1]++;
+      }
+    }
 
-    createDailyHistoryStatusSheet(workbook, headerStyle, dataStyle);
+    for (Event event : objHistory.getEvents()) {
+      totalEvents++;
+      if ("SUCCESS".equals(event.getEventStatus())) {
+        successfulEvents++;
+      }
 
-    // Statistical Analysis Sheets
-    createCategoryAnalysisSheet(workbook, headerStyle, dataStyle);
-    createConfidenceAnalysisSheet(workbook, headerStyle, dataStyle);
+      EventStatusTotals totals = eventsByStatus.computeIfAbsent(event.getEventStatus(), s -> new EventStatusTotals());
+      totals.count++;
+      totals.confidenceSum += event.getConfidence();
+      if (event.getDateCaptured() != null && event.getEndTime() != null) {
+        totals.durationSum += java.time.Duration.between(event.getDateCaptured(), event.getEndTime()).toMinutes();
+        totals.durationCount++;
+      }
+    }
+  }
 
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    workbook.write(outputStream);
-    return outputStream.toByteArray();
+  private void createHeaderRow(Sheet sheet, String[] headers, CellStyle headerStyle) {
+    Row headerRow = sheet.createRow(0);
+    for (int i = 0; i < headers.length; i++) {
+      Cell cell = headerRow.createCell(i);
+      cell.setCellValue(headers[i]);
+      cell.setCellStyle(headerStyle);
+    }
   }
 
-  private void createOverviewSheet(XSSFSheet sheet, XSSFCellStyle headerStyle, XSSFCellStyle dataStyle) {
+  private void createOverviewSheet(Sheet sheet, CellStyle headerStyle, CellStyle dataStyle) {
     // Summary statistics
     int rowNum = 0;
     Row titleRow = sheet.createRow(rowNum++);
@@ -109,62 +240,43 @@ public class ExcelReportService {
     }
   }
 
-  private void createDetailSheet(XSSFSheet sheet, XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle, XSSFCellStyle dateStyle) {
-    // Tạo tiêu đề cột
-    String[] headers = {
-        "Camera ID", "Object ID", "Name", "Category",
-        "History Count", "Event Count", "History Time", "History Status", "Location",
-        "Status", "Confidence", "Latitude", "Longitude", "Last Updated"
-    };
-
-    Row headerRow = sheet.createRow(0);
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
-
-    // Đổ dữ liệu
-    int rowNum = 1;
-    for (ReportResponse.ObjectHistory objHistory : reportData.getObjects()) {
-      ReportResponse.InfraObject obj = objHistory.getInfraObject();
-      List<History> histories = objHistory.getHistories();
-      List<Event> events = objHistory.getEvents();
+  // one row per history of the object, or a single row if it has none
+  private int writeDetailRows(Sheet sheet, int rowNum, ReportResponse.ObjectHistory objHistory,
+      CellStyle dateStyle, ColumnWidths widths) {
+    ReportResponse.InfraObject obj = objHistory.getInfraObject();
+    List<History> histories = objHistory.getHistories();
+    List<Event> events = objHistory.getEvents();
 
-      if (histories.isEmpty()) {
-        // Nếu không có history, vẫn tạo một dòng bình thường
+    if (histories.isEmpty()) {
+      // Nếu không có history, vẫn tạo một dòng bình thường
+      Row row = sheet.createRow(rowNum++);
+      fillObjectData(row, obj, objHistory.getHistories().size(), events.size(), dateStyle);
+      widths.sample(row);
+    } else {
+      // Nếu có history, mỗi history là một dòng riêng
+      boolean firstRow = true;
+      for (ReportResponse.History history : histories) {
         Row row = sheet.createRow(rowNum++);
-        fillObjectData(row, obj, objHistory.getHistories().size(), events.size(), dateStyle);
-      } else {
-        // Nếu có history, mỗi history là một dòng riêng
-        boolean firstRow = true;
-        for (ReportResponse.History history : histories) {
-          Row row = sheet.createRow(rowNum++);
-
-          if (firstRow) { // Chỉ ghi thông tin Object vào dòng đầu tiên
-            fillObjectData(row, obj, histories.size(), events.size(), dateStyle);
-            firstRow = false;
-          }
-
-          // Ghi thông tin lịch sử vào cột riêng
-          Cell historyTimeCell = row.createCell(6);
-          historyTimeCell.setCellValue(history.getDateCaptured());
-          historyTimeCell.setCellStyle(dateStyle);
-
-          row.createCell(7).setCellValue(history.getStatus());
+
+        if (firstRow) { // Chỉ ghi thông tin Object vào dòng đầu tiên
+          fillObjectData(row, obj, histories.size(), events.size(), dateStyle);
+          firstRow = false;
         }
-      }
-    }
 
-    // Tự động chỉnh kích thước cột
-    for (int i = 0; i < headers.length; i++) {
-      sheet.autoSizeColumn(i);
+        // Ghi thông tin lịch sử vào cột riêng
+        Cell historyTimeCell = row.createCell(6);
+        historyTimeCell.setCellValue(history.getDateCaptured());
+        historyTimeCell.setCellStyle(dateStyle);
+
+        row.createCell(7).setCellValue(history.getStatus());
+        widths.sample(row);
+      }
     }
+    return rowNum;
   }
 
   // Hàm hỗ trợ để điền thông tin Object vào dòng đầu tiên
-  private void fillObjectData(Row row, ReportResponse.InfraObject obj, int historyCount, int eventCount, XSSFCellStyle dateStyle) {
+  private void fillObjectData(Row row, ReportResponse.InfraObject obj, int historyCount, int eventCount, CellStyle dateStyle) {
     row.createCell(0).setCellValue(obj.getCameraId());
     row.createCell(1).setCellValue(obj.getId());
     row.createCell(2).setCellValue(obj.getName());
@@ -183,72 +295,36 @@ public class ExcelReportService {
     row.createCell(8).setCellValue(obj.getLocation());
   }
 
-  private void createCategoryAnalysisSheet(XSSFWorkbook workbook,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle) {
-    XSSFSheet categorySheet = workbook.createSheet("Category Analysis");
-
-    // Group objects by category
-    Map<String, Long> categoryCount = reportData.getObjects().stream()
-        .map(ReportResponse.ObjectHistory::getInfraObject)
-        .collect(Collectors.groupingBy(
-            ReportResponse.InfraObject::getCategory,
-            Collectors.counting()
-        ));
-
+  private void createCategoryAnalysisSheet(Sheet categorySheet,
+      CellStyle headerStyle,
+      CellStyle dataStyle) {
     // Create headers
-    Row headerRow = categorySheet.createRow(0);
     String[] headers = {"Category", "Count", "Percentage"};
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
+    createHeaderRow(categorySheet, headers, headerStyle);
 
     // Populate data
-    long totalObjects = categoryCount.values().stream().mapToLong(Long::longValue).sum();
     int rowNum = 1;
-    for (Map.Entry<String, Long> entry : categoryCount.entrySet()) {
+    for (Map.Entry<String, Long> entry : categoryCounts.entrySet()) {
       Row row = categorySheet.createRow(rowNum++);
       row.createCell(0).setCellValue(entry.getKey());
       row.createCell(1).setCellValue(entry.getValue());
       row.createCell(2).setCellValue(
-          String.format("%.2f%%", (entry.getValue() * 100.0) / totalObjects)
+          String.format("%.2f%%", (entry.getValue() * 100.0) / objectCount)
       );
     }
   }
 
-  private void createConfidenceAnalysisSheet(XSSFWorkbook workbook,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle) {
-    XSSFSheet confidenceSheet = workbook.createSheet("Confidence Analysis");
-
+  private void createConfidenceAnalysisSheet(Sheet confidenceSheet,
+      CellStyle headerStyle,
+      CellStyle dataStyle) {
     // Confidence level ranges
     String[] confidenceLevels = {
         "0-20%", "20-40%", "40-60%", "60-80%", "80-100%"
     };
-    int[] confidenceCounts = new int[5];
-
-    // Count confidence levels per history entry
-    long totalHistories = 0;
-    for (ReportResponse.ObjectHistory objHistory : reportData.getObjects()) {
-      for (ReportResponse.History history : objHistory.getHistories()) {
-        double confidence = history.getConfidence()*100.0; // Lấy confidence từ từng history
-        int index = (int) (confidence / 20);
-        if (index == 5) index = 4;  // Handle 100%
-        confidenceCounts[index]++;
-        totalHistories++;
-      }
-    }
 
     // Create headers
-    Row headerRow = confidenceSheet.createRow(0);
     String[] headers = {"Confidence Range", "Count", "Percentage"};
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
+    createHeaderRow(confidenceSheet, headers, headerStyle);
 
     // Populate data
     for (int i = 0; i < confidenceLevels.length; i++) {
@@ -262,36 +338,7 @@ public class ExcelReportService {
   }
 
   private Object[] calculateOverviewMetrics() {
-    Set<String> uniqueObjects = reportData.getObjects().stream()
-        .map(obj -> obj.getInfraObject().getId())
-        .collect(Collectors.toSet());
-
-    Set<String> uniqueCameras = reportData.getObjects().stream()
-        .map(obj -> obj.getInfraObject().getCameraId())
-        .collect(Collectors.toSet());
-
-    // Count total events
-    long totalEvents = reportData.getObjects().stream()
-        .mapToLong(obj -> obj.getEvents().size())
-        .sum();
-
-    Map<String, Long> categoryCounts = reportData.getObjects().stream()
-        .map(ReportResponse.ObjectHistory::getInfraObject)
-        .collect(Collectors.groupingBy(
-            ReportResponse.InfraObject::getCategory,
-            Collectors.counting()
-        ));
-
-    double avgConfidence = reportData.getObjects().stream()
-        .mapToDouble(obj -> obj.getInfraObject().getConfidence())
-        .average()
-        .orElse(0.0);
-
-    // Calculate event success rate
-    long successfulEvents = reportData.getObjects().stream()
-        .flatMap(obj -> obj.getEvents().stream())
-        .filter(event -> "SUCCESS".equals(event.getEventStatus()))
-        .count();
+    double avgConfidence = objectCount > 0 ? objectConfidenceSum / objectCount : 0.0;
 
     String eventSuccessRate = totalEvents > 0
         ? String.format("%.2f%%", (successfulEvents * 100.0) / totalEvents)
@@ -308,9 +355,9 @@ public class ExcelReportService {
   }
 
   // Utility style methods
-  private XSSFCellStyle createHeaderStyle(XSSFWorkbook workbook) {
-    XSSFCellStyle style = workbook.createCellStyle();
-    XSSFFont font = workbook.createFont();
+  private CellStyle createHeaderStyle(Workbook workbook) {
+    CellStyle style = workbook.createCellStyle();
+    Font font = workbook.createFont();
     font.setBold(true);
     font.setColor(IndexedColors.WHITE.getIndex());
     style.setFont(font);
@@ -320,14 +367,14 @@ public class ExcelReportService {
     return style;
   }
 
-  private XSSFCellStyle createDataStyle(XSSFWorkbook workbook) {
-    XSSFCellStyle style = workbook.createCellStyle();
+  private CellStyle createDataStyle(Workbook workbook) {
+    CellStyle style = workbook.createCellStyle();
     style.setAlignment(HorizontalAlignment.LEFT);
     return style;
   }
 
-  private XSSFCellStyle createDateStyle(XSSFWorkbook workbook) {
-    XSSFCellStyle style = workbook.createCellStyle();
+  private CellStyle createDateStyle(Workbook workbook) {
+    CellStyle style = workbook.createCellStyle();
     CreationHelper createHelper = workbook.getCreationHelper();
     style.setDataFormat(
         createHelper.createDataFormat().getFormat("yyyy-mm-dd HH:mm:ss")
@@ -335,158 +382,112 @@ public class ExcelReportService {
     return style;
   }
 
-  private XSSFCellStyle createWarningStyle(XSSFWorkbook workbook) {
-    XSSFCellStyle style = workbook.createCellStyle();
+  private CellStyle createWarningStyle(Workbook workbook) {
+    CellStyle style = workbook.createCellStyle();
     style.setFillForegroundColor(IndexedColors.CORAL.getIndex());
     style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-    XSSFFont font = workbook.createFont();
+    Font font = workbook.createFont();
     font.setColor(IndexedColors.WHITE.getIndex());
     style.setFont(font);
     return style;
   }
 
-  private XSSFCellStyle createEventStyle(XSSFWorkbook workbook) {
-    XSSFCellStyle style = workbook.createCellStyle();
+  private CellStyle createEventStyle(Workbook workbook) {
+    CellStyle style = workbook.createCellStyle();
     style.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
     style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
     return style;
   }
 
-  private void createObjectHistoriesSheet(XSSFSheet sheet,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle,
-      XSSFCellStyle dateStyle,
-      XSSFCellStyle warningStyle) {
-    // Create headers
-    String[] headers = {
-        "Object ID", "History ID", "Status", "Confidence",
-        "Level", "Date Captured", "Image Available"
-    };
-
-    Row headerRow = sheet.createRow(0);
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
-
+  private int writeHistoryRows(Sheet sheet, int rowNum, ReportResponse.ObjectHistory objHistory,
+      CellStyle dateStyle, CellStyle warningStyle, ColumnWidths widths) {
     // Populate history details
-    int rowNum = 1;
-    for (ReportResponse.ObjectHistory objHistory : reportData.getObjects()) {
-      for (History history : objHistory.getHistories()) {
-        Row row = sheet.createRow(rowNum++);
+    for (History history : objHistory.getHistories()) {
+      Row row = sheet.createRow(rowNum++);
 
-        // Object Identification
-        row.createCell(0).setCellValue(objHistory.getInfraObject().getId());
-        row.createCell(1).setCellValue(history.getId());
+      // Object Identification
+      row.createCell(0).setCellValue(objHistory.getInfraObject().getId());
+      row.createCell(1).setCellValue(history.getId());
 
-        // Status and Confidence
-        row.createCell(2).setCellValue(history.getStatus());
+      // Status and Confidence
+      row.createCell(2).setCellValue(history.getStatus());
 
-        Cell confidenceCell = row.createCell(3);
-        confidenceCell.setCellValue(history.getConfidence());
-        if (history.getConfidence() < 0.5) {  // Low confidence threshold
-          confidenceCell.setCellStyle(warningStyle);
-        }
+      Cell confidenceCell = row.createCell(3);
+      confidenceCell.setCellValue(history.getConfidence());
+      if (history.getConfidence() < 0.5) {  // Low confidence threshold
+        confidenceCell.setCellStyle(warningStyle);
+      }
 
-        // Level
-        row.createCell(4).setCellValue(history.getLevel());
+      // Level
+      row.createCell(4).setCellValue(history.getLevel());
 
-        // Timestamp
-        Cell timestampCell = row.createCell(5);
-        timestampCell.setCellValue(history.getDateCaptured());
-        timestampCell.setCellStyle(dateStyle);
+      // Timestamp
+      Cell timestampCell = row.createCell(5);
+      timestampCell.setCellValue(history.getDateCaptured());
+      timestampCell.setCellStyle(dateStyle);
 
-        // Image Availability
-        row.createCell(6).setCellValue(history.getImage() != null ? "Yes" : "No");
-      }
-    }
-
-    // Auto-size columns
-    for (int i = 0; i < headers.length; i++) {
-      sheet.autoSizeColumn(i);
+      // Image Availability
+      row.createCell(6).setCellValue(history.getImage() != null ? "Yes" : "No");
+      widths.sample(row);
     }
+    return rowNum;
   }
 
-  private void createEventAnalysisSheet(XSSFSheet sheet,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle,
-      XSSFCellStyle dateStyle,
-      XSSFCellStyle eventStyle) {
-    // Create headers
-    String[] headers = {
-        "Object ID", "Event ID", "Status", "Event Status", "Confidence",
-        "Level", "Start Time", "End Time", "Duration (min)", "Image Available"
-    };
+  private int writeEventRows(Sheet sheet, int rowNum, ReportResponse.ObjectHistory objHistory,
+      CellStyle dateStyle, CellStyle eventStyle, ColumnWidths widths) {
+    // Populate event details
+    for (Event event : objHistory.getEvents()) {
+      Row row = sheet.createRow(rowNum++);
 
-    Row headerRow = sheet.createRow(0);
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
+      // Object Identification
+      row.createCell(0).setCellValue(objHistory.getInfraObject().getId());
+      row.createCell(1).setCellValue(event.getId());
 
-    // Populate event details
-    int rowNum = 1;
-    for (ReportResponse.ObjectHistory objHistory : reportData.getObjects()) {
-      for (Event event : objHistory.getEvents()) {
-        Row row = sheet.createRow(rowNum++);
+      // Status and Event Status
+      row.createCell(2).setCellValue(event.getStatus());
 
-        // Object Identification
-        row.createCell(0).setCellValue(objHistory.getInfraObject().getId());
-        row.createCell(1).setCellValue(event.getId());
+      Cell eventStatusCell = row.createCell(3);
+      eventStatusCell.setCellValue(event.getEventStatus());
+      if ("SUCCESS".equals(event.getEventStatus())) {
+        eventStatusCell.setCellStyle(eventStyle);
+      }
 
-        // Status and Event Status
-        row.createCell(2).setCellValue(event.getStatus());
+      // Confidence
+      Cell confidenceCell = row.createCell(4);
+      confidenceCell.setCellValue(event.getConfidence());
 
-        Cell eventStatusCell = row.createCell(3);
-        eventStatusCell.setCellValue(event.getEventStatus());
-        if ("SUCCESS".equals(event.getEventStatus())) {
-          eventStatusCell.setCellStyle(eventStyle);
-        }
+      // Level
+      row.createCell(5).setCellValue(event.getLevel());
 
-        // Confidence
-        Cell confidenceCell = row.createCell(4);
-        confidenceCell.setCellValue(event.getConfidence());
-
-        // Level
-        row.createCell(5).setCellValue(event.getLevel());
-
-        // Start Time
-        Cell startTimeCell = row.createCell(6);
-        startTimeCell.setCellValue(event.getDateCaptured());
-        startTimeCell.setCellStyle(dateStyle);
-
-        // End Time
-        Cell endTimeCell = row.createCell(7);
-        endTimeCell.setCellValue(event.getEndTime());
-        endTimeCell.setCellStyle(dateStyle);
-
-        // Duration in minutes (if both start and end times are available)
-        if (event.getDateCaptured() != null && event.getEndTime() != null) {
-          double durationMinutes = java.time.Duration.between(
-              event.getDateCaptured(), event.getEndTime()).toMinutes();
-          row.createCell(8).setCellValue(durationMinutes);
-        } else {
-          row.createCell(8).setCellValue("N/A");
-        }
+      // Start Time
+      Cell startTimeCell = row.createCell(6);
+      startTimeCell.setCellValue(event.getDateCaptured());
+      startTimeCell.setCellStyle(dateStyle);
+
+      // End Time
+      Cell endTimeCell = row.createCell(7);
+      endTimeCell.setCellValue(event.getEndTime());
+      endTimeCell.setCellStyle(dateStyle);
 
-        // Image Availability
-        row.createCell(9).setCellValue(event.getImage() != null ? "Yes" : "No");
+      // Duration in minutes (if both start and end times are available)
+      if (event.getDateCaptured() != null && event.getEndTime() != null) {
+        double durationMinutes = java.time.Duration.between(
+            event.getDateCaptured(), event.getEndTime()).toMinutes();
+        row.createCell(8).setCellValue(durationMinutes);
+      } else {
+        row.createCell(8).setCellValue("N/A");
       }
-    }
 
-    // Auto-size columns
-    for (int i = 0; i < headers.length; i++) {
-      sheet.autoSizeColumn(i);
+      // Image Availability
+      row.createCell(9).setCellValue(event.getImage() != null ? "Yes" : "No");
+      widths.sample(row);
     }
+    return rowNum;
   }
 
-  private void createDailyHistoryStatusSheet(XSSFWorkbook workbook,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle) {
-    XSSFSheet dailyStatusSheet = workbook.createSheet("Daily History Status");
-
+  private void createDailyHistoryStatusSheet(Sheet dailyStatusSheet,
+      CellStyle headerStyle,
+      CellStyle dataStyle) {
     // Prepare headers
     String[] headers = {
         "Date",
@@ -495,57 +496,40 @@ public class ExcelReportService {
         "Not OK Count",
         "OK Percentage"
     };
-
-    Row headerRow = dailyStatusSheet.createRow(0);
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
-
-    // Group histories by date
-    Map<String, List<ReportResponse.History>> dailyHistories = reportData.getObjects().stream()
-        .flatMap(objHistory -> objHistory.getHistories().stream())
-        .collect(Collectors.groupingBy(
-            history -> history.getDateCaptured().toLocalDate().format(DateTimeFormatter.ISO_LOCAL_DATE)
-        ));
+    createHeaderRow(dailyStatusSheet, headers, headerStyle);
+    ColumnWidths widths = new ColumnWidths(headers);
 
     // Populate daily status statistics
     int rowNum = 1;
-    for (Map.Entry<String, List<ReportResponse.History>> entry : dailyHistories.entrySet()) {
+    for (Map.Entry<String, long[]> entry : dailyHistories.entrySet()) {
       Row row = dailyStatusSheet.createRow(rowNum++);
 
       // Date
       row.createCell(0).setCellValue(entry.getKey());
 
-      List<ReportResponse.History> dailyHistoryList = entry.getValue();
-
       // Total Histories
-      row.createCell(1).setCellValue(dailyHistoryList.size());
+      long total = entry.getValue()[0];
+      row.createCell(1).setCellValue(total);
 
       // Count OK and Not OK statuses
-      long okCount = dailyHistoryList.stream()
-          .filter(h -> "OK".equals(h.getStatus()))
-          .count();
-      long notOkCount = dailyHistoryList.size() - okCount;
+      long okCount = entry.getValue()[1];
+      long notOkCount = total - okCount;
 
       row.createCell(2).setCellValue(okCount);
       row.createCell(3).setCellValue(notOkCount);
 
       // OK Percentage
-      double okPercentage = (okCount * 100.0) / dailyHistoryList.size();
+      double okPercentage = (okCount * 100.0) / total;
       row.createCell(4).setCellValue(String.format("%.2f%%", okPercentage));
+      widths.sample(row);
     }
 
-    // Auto-size columns
-    for (int i = 0; i < headers.length; i++) {
-      dailyStatusSheet.autoSizeColumn(i);
-    }
+    widths.apply(dailyStatusSheet);
   }
 
-  private void createEventStatusSheet(XSSFSheet sheet,
-      XSSFCellStyle headerStyle,
-      XSSFCellStyle dataStyle) {
+  private void createEventStatusSheet(Sheet sheet,
+      CellStyle headerStyle,
+      CellStyle dataStyle) {
     // Prepare headers
     String[] headers = {
         "Event Status",
@@ -554,62 +538,81 @@ public class ExcelReportService {
         "Avg. Duration (min)",
         "Avg. Confidence"
     };
-
-    Row headerRow = sheet.createRow(0);
-    for (int i = 0; i < headers.length; i++) {
-      Cell cell = headerRow.createCell(i);
-      cell.setCellValue(headers[i]);
-      cell.setCellStyle(headerStyle);
-    }
-
-    // Group events by event status
-    Map<String, List<Event>> eventsByStatus = reportData.getObjects().stream()
-        .flatMap(objHistory -> objHistory.getEvents().stream())
-        .collect(Collectors.groupingBy(Event::getEventStatus));
-
-    // Calculate total events
-    long totalEvents = eventsByStatus.values().stream()
-        .mapToLong(List::size)
-        .sum();
+    createHeaderRow(sheet, headers, headerStyle);
+    ColumnWidths widths = new ColumnWidths(headers);
 
     // Populate event status statistics
     int rowNum = 1;
-    for (Map.Entry<String, List<Event>> entry : eventsByStatus.entrySet()) {
+    for (Map.Entry<String, EventStatusTotals> entry : eventsByStatus.entrySet()) {
       Row row = sheet.createRow(rowNum++);
 
       // Event Status
       row.createCell(0).setCellValue(entry.getKey());
 
-      List<Event> eventList = entry.getValue();
-      int eventCount = eventList.size();
+      EventStatusTotals totals = entry.getValue();
 
       // Count
-      row.createCell(1).setCellValue(eventCount);
+      row.createCell(1).setCellValue(totals.count);
 
       // Percentage
-      double percentage = (eventCount * 100.0) / totalEvents;
+      double percentage = (totals.count * 100.0) / totalEvents;
       row.createCell(2).setCellValue(String.format("%.2f%%", percentage));
 
       // Average Duration
-      double avgDuration = eventList.stream()
-          .filter(e -> e.getDateCaptured() != null && e.getEndTime() != null)
-          .mapToLong(e -> java.time.Duration.between(e.getDateCaptured(), e.getEndTime()).toMinutes())
-          .average()
-          .orElse(0);
+      double avgDuration = totals.durationCount > 0 ? (double) totals.durationSum / totals.durationCount : 0;
       row.createCell(3).setCellValue(String.format("%.2f", avgDuration));
 
       // Average Confidence
-      double avgConfidence = eventList.stream()
-          .mapToDouble(Event::getConfidence)
-          .average()
-          .orElse(0);
+      double avgConfidence = totals.confidenceSum / totals.count;
       row.createCell(4).setCellValue(String.format("%.2f", avgConfidence));
+      widths.sample(row);
     }
 
-    // Auto-size columns
-    for (int i = 0; i < headers.length; i++) {
-      sheet.autoSizeColumn(i);
+    widths.apply(sheet);
+  }
+
+  // autoSizeColumn needs every row in memory and measures text with AWT fonts,
+  // the width is estimated from the character count of the first rows instead
+  private static class ColumnWidths {
+    private final int[] maxChars;
+    private int sampledRows = 0;
+
+    ColumnWidths(String[] headers) {
+      maxChars = new int[headers.length];
+      for (int i = 0; i < headers.length; i++) {
+        maxChars[i] = headers[i].length();
+      }
+    }
+
+    void sample(Row row) {
+      if (sampledRows++ >= WIDTH_SAMPLE_ROWS) {
+        return;
+      }
+      for (Cell cell : row) {
+        int column = cell.getColumnIndex();
+        if (column < maxChars.length) {
+          maxChars[column] = Math.max(maxChars[column], displayLength(cell));
+        }
+      }
+    }
+
+    void apply(Sheet sheet) {
+      for (int i = 0; i < maxChars.length; i++) {
+        // unit is 1/256 of a character, +2 for padding and the bold header
+        sheet.setColumnWidth(i, (Math.min(maxChars[i], MAX_COLUMN_CHARS) + 2) * 256);
+      }
+    }
+
+    private static int displayLength(Cell cell) {
+      if (cell.getCellType() == CellType.STRING) {
+        return cell.getStringCellValue().length();
+      }
+      if (cell.getCellType() == CellType.NUMERIC) {
+        // ngày giờ theo định dạng yyyy-mm-dd HH:mm:ss
+        return DateUtil.isCellDateFormatted(cell) ? 19 : String.valueOf(cell.getNumericCellValue()).length();
+      }
+      return 0;
     }
   }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.example.report_service.service;
+
+import com.example.report_service.client.InfraServiceClient;
+import com.example.report_service.client.MinioService;
+import com.example.report_service.dto.request.CameraReportRequest;
+import com.example.report_service.dto.response.ReportJobResponse;
+import com.example.report_service.enums.ReportJobStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// camera reports generated in the background and stored in minio,
+// a file is named after the request and the event version of infra so it is reused until new events arrive
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportJobService {
+  private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+  private final InfraServiceClient infraServiceClient;
+  private final ReportService reportService;
+  private final MinioService minioService;
+
+  @Value("${report.jobs.threads:2}")
+  private int threads;
+
+  @Value("${report.jobs.queue-capacity:20}")
+  private int queueCapacity;
+
+  @Value("${report.jobs.bucket:reports}")
+  private String bucket;
+
+  @Value("${report.jobs.url-expiry-minutes:60}")
+  private int urlExpiryMinutes;
+
+  @Value("${report.jobs.retention-ms:86400000}")
+  private long retentionMs;
+
+  private ExecutorService executor;
+  // job id -> job
+  private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+  // minio object name -> job, identical requests on the same data share one job
+  private final Map<String, ReportJob> jobsByObject = new ConcurrentHashMap<>();
+
+  private static class ReportJob {
+    private final String id = UUID.randomUUID().toString();
+    private final String objectName;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    // users that requested it, only they can read the job
+    private final Set<String> owners = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile ReportJobStatus status = ReportJobStatus.PENDING;
+    private volatile LocalDateTime completedAt;
+    private volatile String error;
+
+    private ReportJob(String objectName) {
+      this.objectName = objectName;
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    // bounded queue, when it is full new reports are refused instead of piling up
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  public ReportJobResponse submitCameraReport(CameraReportRequest request, String userId) {
+    // also fails if the user has no access to the camera
+    String version = infraServiceClient.getCameraReportVersion(request, userId).getData();
+    String objectName = "camera/" + request.getCameraId() + "/" + request.getStartTime() + "_" + request.getEndTime()
+        + "/" + (version == null || version.isEmpty() ? "empty" : version) + ".xlsx";
+
+    ReportJob job = jobsByObject.compute(objectName, (key, existing) ->
+        existing != null && existing.status != ReportJobStatus.FAILED ? existing : new ReportJob(key));
+    job.owners.add(userId);
+    jobs.putIfAbsent(job.id, job);
+
+    if (job.started.compareAndSet(false, true)) {
+      start(job, request, userId);
+    }
+    return toResponse(job);
+  }
+
+  public ReportJobResponse getJob(String jobId, String userId) {
+    return toResponse(findJob(jobId, userId));
+  }
+
+  // null until the report is completed
+  public String getDownloadUrl(String jobId, String userId) {
+    ReportJob job = findJob(jobId, userId);
+    if (job.status != ReportJobStatus.COMPLETED) {
+      return null;
+    }
+    return minioService.getPresignedUrl(bucket, job.objectName, urlExpiryMinutes);
+  }
+
+  // files stay in minio, only the job entries are dropped
+  @Scheduled(fixedDelayString = "${report.jobs.cleanup-ms:600000}")
+  public void removeFinishedJobs() {
+    LocalDateTime threshold = LocalDateTime.now().minus(Duration.ofMillis(retentionMs));
+    jobs.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(threshold));
+    jobsByObject.values().removeIf(job -> job.completedAt != null && job.completedAt.isBefore(threshold));
+  }
+
+  private void start(ReportJob job, CameraReportRequest request, String userId) {
+    try {
+      executor.execute(() -> generate(job, request, userId));
+    } catch (RejectedExecutionException e) {
+      complete(job, "Too many reports in progress, try again later");
+      throw new RuntimeException(job.error);
+    }
+  }
+
+  private void generate(ReportJob job, CameraReportRequest request, String userId) {
+    job.status = ReportJobStatus.RUNNING;
+    Path file = null;
+    try {
+      // generated before, e.g. by another instance or before a restart
+      if (minioService.exists(bucket, job.objectName)) {
+        complete(job, null);
+        return;
+      }
+
+      // written to a temp file first, the upload needs the size
+      file = Files.createTempFile("camera-report-", ".xlsx");
+      try (OutputStream outputStream = Files.newOutputStream(file)) {
+        reportService.getCameraReport(request, userId).writeTo(outputStream);
+      }
+      minioService.uploadFile(file, bucket, job.objectName, XLSX_CONTENT_TYPE);
+      complete(job, null);
+    } catch (Exception e) {
+      log.error("Camera report {} failed: {}", job.objectName, e.getMessage(), e);
+      complete(job, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+    } finally {
+      if (file != null) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          log.warn("Could not delete temp report {}", file);
+        }
+      }
+    }
+  }
+
+  private void complete(ReportJob job, String error) {
+    job.error = error;
+    job.completedAt = LocalDateTime.now();
+    job.status = error == null ? ReportJobStatus.COMPLETED : ReportJobStatus.FAILED;
+  }
+
+  private ReportJob findJob(String jobId, String userId) {
+    ReportJob job = jobs.get(jobId);
+    if (job == null || !job.owners.contains(userId)) {
+      throw new RuntimeException("Report job not found");
+    }
+    return job;
+  }
+
+  private ReportJobResponse toResponse(ReportJob job) {
+    return ReportJobResponse.builder()
+        .jobId(job.id)
+        .status(job.status)
+        .createdAt(job.createdAt)
+        .completedAt(job.completedAt)
+        .downloadUrl(job.status == ReportJobStatus.COMPLETED
+            ? minioService.getPresignedUrl(bucket, job.objectName, urlExpiryMinutes)
+            : null)
+        .error(job.error)
+        .build();
+  }
+}
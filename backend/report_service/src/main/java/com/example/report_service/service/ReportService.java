@@ -4,34 +4,105 @@ import com.example.report_service.client.InfraServiceClient;
 import com.example.report_service.dto.ApiResponse;
 import com.example.report_service.dto.request.CameraReportRequest;
 import com.example.report_service.dto.response.ReportResponse;
-import java.io.IOException;
-import java.time.LocalDate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Service
 @RequiredArgsConstructor
 public class ReportService {
 
   private final InfraServiceClient infraServiceClient;
+  private final ObjectMapper objectMapper;
 
-  public byte[] getHistoryReport(String infraId) throws Exception {
+  @Value("${report.excel.row-window:100}")
+  private int rowWindow;
+
+  // data is fetched before the response starts so a failed call can still return an error status
+  public StreamingResponseBody getHistoryReport(String infraId) {
     ApiResponse<ReportResponse> apiResponse = infraServiceClient.getHistoryInfraReport(infraId);
+    ExcelReportService excelReportService = new ExcelReportService(apiResponse.getData(), rowWindow);
+    return excelReportService::writeComprehensiveReport;
+  }
 
-    ReportResponse reportData = apiResponse.getData();
-    System.out.println(reportData.getCameraId());
-    ExcelReportService excelReportService = new ExcelReportService(reportData);
+  // objects are read from the infra stream one line at a time and written to the workbook as they arrive
+  public StreamingResponseBody getCameraReport(CameraReportRequest request, String userId) {
+    Response response = infraServiceClient.streamInfraReport(request, userId);
+    if (response.status() != 200) {
+      response.close();
+      throw new RuntimeException("infrastructure-service returned " + response.status() + " for camera report");
+    }
 
-    return  excelReportService.generateComprehensiveReport();
+    return outputStream -> {
+      try (response;
+          MappingIterator<JsonNode> lines = objectMapper.readerFor(JsonNode.class)
+              .readValues(response.body().asInputStream())) {
+        new ExcelReportService(rowWindow).writeComprehensiveReport(new ReportStream(lines, objectMapper),
+            outputStream);
+      }
+    };
   }
 
-  public byte[] getCameraReport(CameraReportRequest request, String userId) throws Exception {
-    ApiResponse<ReportResponse> apiResponse = infraServiceClient.getInfraReport(request, userId);
-    ReportResponse reportData = apiResponse.getData();
-    System.out.println(reportData.getCameraId());
-    ExcelReportService excelReportService = new ExcelReportService(reportData);
+  // objects of the infra stream, which ends with {"end":true,"count":N}.
+  // a stream cut off before that line fails instead of producing a truncated report
+  private static class ReportStream implements Iterator<ReportResponse.ObjectHistory> {
+    private final MappingIterator<JsonNode> lines;
+    private final ObjectMapper objectMapper;
+    private JsonNode next;
+    private long count = 0;
+    private boolean ended = false;
+
+    private ReportStream(MappingIterator<JsonNode> lines, ObjectMapper objectMapper) {
+      this.lines = lines;
+      this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) {
+        return true;
+      }
+      if (ended) {
+        return false;
+      }
+      if (!lines.hasNext()) {
+        throw new RuntimeException("Camera report stream ended after " + count + " objects without end marker");
+      }
+      JsonNode line = lines.next();
+      if (line.path("end").asBoolean(false)) {
+        long expected = line.path("count").asLong(-1);
+        if (expected != count) {
+          throw new RuntimeException("Camera report stream has " + count + " objects, expected " + expected);
+        }
+        ended = true;
+        return false;
+      }
+      next = line;
+      return true;
+    }
 
-    return  excelReportService.generateComprehensiveReport();
+    @Override
+    public ReportResponse.ObjectHistory next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      JsonNode line = next;
+      next = null;
+      count++;
+      try {
+        return objectMapper.treeToValue(line, ReportResponse.ObjectHistory.class);
+      } catch (JsonProcessingException e) {
+        throw new RuntimeException("Invalid object in camera report stream: " + e.getMessage(), e);
+      }
+    }
   }
 
 }